@@ -0,0 +1,55 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.lang.UsesJava8;
+
+/**
+ * Bridges asynchronous mapper methods to {@link CompletableFuture}.
+ * Only loaded when a mapper method actually declares a {@code CompletableFuture} return type.
+ */
+@UsesJava8
+class CompletableFutureAdapter {
+
+  static final String COMPLETABLE_FUTURE_CLASS_NAME = "java.util.concurrent.CompletableFuture";
+
+  static Future<Object> submit(final Callable<Object> task, Executor executor) {
+    final CompletableFuture<Object> future = new CompletableFuture<Object>();
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (future.isCancelled()) {
+          return;
+        }
+        try {
+          future.complete(task.call());
+        } catch (Throwable t) {
+          future.completeExceptionally(t);
+        }
+      }
+    });
+    return future;
+  }
+
+  private CompletableFutureAdapter() {
+    super();
+  }
+}
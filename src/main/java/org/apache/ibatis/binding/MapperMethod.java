@@ -3,6 +3,7 @@ package org.apache.ibatis.binding;
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.statement.QueryDeadline;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
@@ -13,12 +14,17 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * 与mapper方法对应的sql语句执行方法处理类
@@ -96,6 +102,51 @@ public class MapperMethod {
 		return result;
 	}
 
+	/*
+	 * 检测对应的方法是否需要进行异步执行处理------------>即方法的返回值类型为Future或者CompletableFuture
+	 */
+	public boolean isAsync() {
+		return method.returnsFuture();
+	}
+
+	/*
+	 * 将sql语句的执行提交到配置的异步执行器中进行处理
+	 *   注意此处使用的是新开启的回话对象,而不是调用方所持有的回话对象(SqlSession不是线程安全的)
+	 */
+	public Object executeAsync(SqlSession sqlSession, final Object[] args) {
+		final Configuration configuration = sqlSession.getConfiguration();
+		final Executor executor = configuration.getAsyncExecutor();
+		//调用线程上绑定的截止时间需要传递到异步执行的线程中
+		final QueryDeadline deadline = QueryDeadline.current();
+		final Callable<Object> task = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				if (deadline != null) {
+					deadline.bind();
+				}
+				SqlSession asyncSession = new DefaultSqlSessionFactory(configuration).openSession();
+				try {
+					Object result = execute(asyncSession, args);
+					if (command.getType() != SqlCommandType.SELECT) {
+						asyncSession.commit();
+					}
+					return result;
+				} finally {
+					asyncSession.close();
+					if (deadline != null) {
+						deadline.unbind();
+					}
+				}
+			}
+		};
+		if (Future.class.equals(method.getFutureType())) {
+			FutureTask<Object> future = new FutureTask<Object>(task);
+			executor.execute(future);
+			return future;
+		}
+		return CompletableFutureAdapter.submit(task, executor);
+	}
+
 	/*
 	 * 将执行sql语句影响的函数转换成对应方法真实需要的返回值类型
 	 */
@@ -289,6 +340,8 @@ public class MapperMethod {
 		private final boolean returnsMap;
 		private final boolean returnsVoid;
 		private final boolean returnsCursor;
+		private final boolean returnsFuture;
+		private final Class<?> futureType;
 		private final Class<?> returnType;
 		private final String mapKey;
 		private final Integer resultHandlerIndex;
@@ -298,18 +351,28 @@ public class MapperMethod {
 		public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
 			//
 			Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
-			if (resolvedReturnType instanceof Class<?>) {
-				this.returnType = (Class<?>) resolvedReturnType;
-			} else if (resolvedReturnType instanceof ParameterizedType) {
-				this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+			Class<?> rawReturnType = toRawType(resolvedReturnType, method.getReturnType());
+			//对于返回Future的方法,后续的处理都是基于Future中包装的真实结果类型进行的
+			this.returnsFuture = isFutureType(rawReturnType);
+			if (this.returnsFuture) {
+				this.futureType = rawReturnType;
+				Type resultType = resolvedReturnType instanceof ParameterizedType ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+				this.returnType = toRawType(resultType, Object.class);
 			} else {
-				this.returnType = method.getReturnType();
+				this.futureType = null;
+				this.returnType = rawReturnType;
 			}
-			this.returnsVoid = void.class.equals(this.returnType);
+			//Future<Void>同样表示方法不需要返回值
+			this.returnsVoid = void.class.equals(this.returnType) || (this.returnsFuture && Void.class.equals(this.returnType));
 			this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
 			this.returnsCursor = Cursor.class.equals(this.returnType);
+			//异步执行使用的回话在任务结束时就会关闭,游标无法在之后继续读取
+			if (this.returnsFuture && this.returnsCursor) {
+				throw new BindingException("Mapper method '" + method.getDeclaringClass().getName() + "." + method.getName()
+						+ "' cannot return a Cursor inside a " + rawReturnType.getSimpleName() + " because the cursor's session is closed when the future completes.");
+			}
 			//
-			this.mapKey = getMapKey(method);
+			this.mapKey = getMapKey(method, this.returnType);
 			this.returnsMap = this.mapKey != null;
 			//获取方法参数中继承自RowBounds对应的索引位置
 			this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
@@ -371,6 +434,35 @@ public class MapperMethod {
 			return returnsCursor;
 		}
 
+		public boolean returnsFuture() {
+			return returnsFuture;
+		}
+
+		/*
+		 * 获取方法声明的Future类型------------>即Future或者CompletableFuture,非异步方法返回null
+		 */
+		public Class<?> getFutureType() {
+			return futureType;
+		}
+
+		private static Class<?> toRawType(Type type, Class<?> defaultType) {
+			if (type instanceof Class<?>) {
+				return (Class<?>) type;
+			} else if (type instanceof ParameterizedType) {
+				return (Class<?>) ((ParameterizedType) type).getRawType();
+			} else {
+				return defaultType;
+			}
+		}
+
+		/**
+		 * Whether {@code type} is an asynchronous return type supported for mapper methods, i.e. {@link Future} or
+		 * {@code CompletableFuture}.
+		 */
+		public static boolean isFutureType(Class<?> type) {
+			return Future.class.equals(type) || CompletableFutureAdapter.COMPLETABLE_FUTURE_CLASS_NAME.equals(type.getName());
+		}
+
 		/*
 		 * 获取给定类型的参数类型在方法中所处的索引位置
 		 */
@@ -397,9 +489,9 @@ public class MapperMethod {
 			return index;
 		}
 
-		private String getMapKey(Method method) {
+		private String getMapKey(Method method, Class<?> returnType) {
 			String mapKey = null;
-			if (Map.class.isAssignableFrom(method.getReturnType())) {
+			if (Map.class.isAssignableFrom(returnType)) {
 				final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
 				if (mapKeyAnnotation != null) {
 					mapKey = mapKeyAnnotation.value();
@@ -50,6 +50,10 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
 		//通过缓存获取对应的MapperMethod对象
 		final MapperMethod mapperMethod = cachedMapperMethod(method);
 		//通过获取到的MapperMethod对象,进行执行对应的sql语句
+		if (mapperMethod.isAsync()) {
+			//返回Future类型的方法需要提交到异步执行器中进行处理
+			return mapperMethod.executeAsync(sqlSession, args);
+		}
 		return mapperMethod.execute(sqlSession, args);
 	}
 
@@ -0,0 +1,107 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+
+/**
+ * Shares the {@link ParameterMapping}s that {@link SqlSourceBuilder} builds for {@code #{}} placeholders across
+ * renderings of dynamic statements.
+ * <p>
+ * A mapping only depends on the placeholder content, the parameter type and the type of the matching additional
+ * parameter (if any), so those three make up the key. Foreach placeholders are numbered per item, so the cache is
+ * bounded and simply starts over once it is full.
+ */
+public class ParameterMappingCache {
+
+  private static final int MAX_ENTRIES = 4096;
+
+  private final ConcurrentMap<String, Map<String, String>> expressions = new ConcurrentHashMap<String, Map<String, String>>();
+  private final ConcurrentMap<Key, ParameterMapping> mappings = new ConcurrentHashMap<Key, ParameterMapping>();
+
+  public Map<String, String> getExpression(String content) {
+    return expressions.get(content);
+  }
+
+  public Map<String, String> putExpression(String content, Map<String, String> expression) {
+    Map<String, String> unmodifiable = Collections.unmodifiableMap(expression);
+    if (expressions.size() >= MAX_ENTRIES) {
+      expressions.clear();
+    }
+    expressions.put(content, unmodifiable);
+    return unmodifiable;
+  }
+
+  public ParameterMapping get(String content, Class<?> parameterType, Class<?> bindingType) {
+    return mappings.get(new Key(content, parameterType, bindingType));
+  }
+
+  public void put(String content, Class<?> parameterType, Class<?> bindingType, ParameterMapping parameterMapping) {
+    if (mappings.size() >= MAX_ENTRIES) {
+      mappings.clear();
+    }
+    mappings.put(new Key(content, parameterType, bindingType), parameterMapping);
+  }
+
+  public int size() {
+    return mappings.size();
+  }
+
+  public void clear() {
+    expressions.clear();
+    mappings.clear();
+  }
+
+  private static final class Key {
+    private final String content;
+    private final Class<?> parameterType;
+    private final Class<?> bindingType;
+    private final int hashCode;
+
+    Key(String content, Class<?> parameterType, Class<?> bindingType) {
+      this.content = content;
+      this.parameterType = parameterType;
+      this.bindingType = bindingType;
+      int hash = content.hashCode();
+      hash = 31 * hash + (parameterType == null ? 0 : parameterType.hashCode());
+      hash = 31 * hash + (bindingType == null ? 0 : bindingType.hashCode());
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return parameterType == other.parameterType && bindingType == other.bindingType && content.equals(other.content);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -64,16 +64,28 @@ public class SqlSourceBuilder extends BaseBuilder {
 
     @Override
     public String handleToken(String content) {
-      parameterMappings.add(buildParameterMapping(content));
+      ParameterMappingCache cache = configuration.getParameterMappingCache();
+      Map<String, String> propertiesMap = cache.getExpression(content);
+      if (propertiesMap == null) {
+        propertiesMap = cache.putExpression(content, parseParameterMapping(content));
+      }
+      String property = propertiesMap.get("property");
+      // issue #448 get type from additional params
+      Class<?> bindingType = metaParameters.hasGetter(property) ? metaParameters.getGetterType(property) : null;
+      ParameterMapping parameterMapping = cache.get(content, parameterType, bindingType);
+      if (parameterMapping == null) {
+        parameterMapping = buildParameterMapping(content, propertiesMap, bindingType);
+        cache.put(content, parameterType, bindingType, parameterMapping);
+      }
+      parameterMappings.add(parameterMapping);
       return "?";
     }
 
-    private ParameterMapping buildParameterMapping(String content) {
-      Map<String, String> propertiesMap = parseParameterMapping(content);
+    private ParameterMapping buildParameterMapping(String content, Map<String, String> propertiesMap, Class<?> bindingType) {
       String property = propertiesMap.get("property");
       Class<?> propertyType;
-      if (metaParameters.hasGetter(property)) { // issue #448 get type from additional params
-        propertyType = metaParameters.getGetterType(property);
+      if (bindingType != null) {
+        propertyType = bindingType;
       } else if (typeHandlerRegistry.hasTypeHandler(parameterType)) {
         propertyType = parameterType;
       } else if (JdbcType.CURSOR.name().equals(propertiesMap.get("jdbcType"))) {
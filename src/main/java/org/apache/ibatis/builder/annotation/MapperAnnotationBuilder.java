@@ -44,6 +44,7 @@ import org.apache.ibatis.annotations.TypeDiscriminator;
 import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.UpdateProvider;
 import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.binding.MapperMethod.MethodSignature;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.IncompleteElementException;
@@ -466,6 +467,11 @@ public class MapperAnnotationBuilder {
 	private Class<?> getReturnType(Method method) {
 		Class<?> returnType = method.getReturnType();
 		Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+		//异步方法需要根据Future中包装的真实类型来确定对应的结果类型
+		if (resolvedReturnType instanceof ParameterizedType && MethodSignature.isFutureType((Class<?>) ((ParameterizedType) resolvedReturnType).getRawType())) {
+			resolvedReturnType = ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0];
+			returnType = resolvedReturnType instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+		}
 		if (resolvedReturnType instanceof Class) {
 			returnType = (Class<?>) resolvedReturnType;
 			if (returnType.isArray()) {
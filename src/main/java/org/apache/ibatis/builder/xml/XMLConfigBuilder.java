@@ -3,6 +3,7 @@ package org.apache.ibatis.builder.xml;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.Properties;
+import java.util.regex.Pattern;
 import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
@@ -10,6 +11,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.resultset.RowMapperFactory;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -378,6 +380,19 @@ public class XMLConfigBuilder extends BaseBuilder {
 		configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
 		configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
 		configuration.setDefaultFetchSize(integerValueOf(props.getProperty("defaultFetchSize"), null));
+		configuration.setAdaptiveFetchSizeEnabled(booleanValueOf(props.getProperty("adaptiveFetchSizeEnabled"), false));
+		configuration.setAdaptiveFetchSizeMin(integerValueOf(props.getProperty("adaptiveFetchSizeMin"), 10));
+		configuration.setAdaptiveFetchSizeMax(integerValueOf(props.getProperty("adaptiveFetchSizeMax"), 1000));
+		configuration.setCompiledRowMappingEnabled(booleanValueOf(props.getProperty("compiledRowMappingEnabled"), true));
+		configuration.setRowMapperFactory((RowMapperFactory) createInstance(props.getProperty("rowMapperFactory")));
+		configuration.setCompactMapResultsEnabled(booleanValueOf(props.getProperty("compactMapResultsEnabled"), false));
+		configuration.setStreamNestedResultsEnabled(booleanValueOf(props.getProperty("streamNestedResultsEnabled"), false));
+		configuration.setParallelResultMappingEnabled(booleanValueOf(props.getProperty("parallelResultMappingEnabled"), false));
+		configuration.setParallelResultMappingBatchSize(integerValueOf(props.getProperty("parallelResultMappingBatchSize"), 1024));
+		configuration.setDynamicSqlCacheSize(integerValueOf(props.getProperty("dynamicSqlCacheSize"), 32));
+		String substitutionFilter = props.getProperty("substitutionFilter");
+		configuration.setSubstitutionFilter(substitutionFilter == null ? null : Pattern.compile(substitutionFilter));
+		configuration.setDynamicSqlMetricsEnabled(booleanValueOf(props.getProperty("dynamicSqlMetricsEnabled"), false));
 		configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
 		configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
 		configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
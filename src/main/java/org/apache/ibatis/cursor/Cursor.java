@@ -21,6 +21,8 @@ import java.io.Closeable;
  * Cursor contract to handle fetching items lazily using an Iterator.
  * Cursors are a perfect fit to handle millions of items queries that would not normally fits in memory.
  * Cursor SQL queries must be ordered (resultOrdered="true") using the id columns of the resultMap.
+ * With the streamNestedResultsEnabled setting the resultOrdered attribute may be omitted, but the rows must still be
+ * ordered using the id columns of the resultMap.
  *
  * @author Guillaume Darmont / guillaume@dropinocean.com
  */
@@ -123,6 +123,24 @@ public class DefaultCursor<T> implements Cursor<T> {
         }
     }
 
+    /**
+     * Gives the driver a hint about the number of rows that should be fetched from the database
+     * on the next round trip. Ignored once the cursor is closed or if the driver does not support it.
+     */
+    public void setFetchSize(int rows) {
+        if (isClosed() || rows <= 0) {
+            return;
+        }
+        ResultSet rs = rsw.getResultSet();
+        try {
+            if (rs != null && rs.getFetchSize() != rows) {
+                rs.setFetchSize(rows);
+            }
+        } catch (SQLException e) {
+            // ignore, the fetch size is only a hint
+        }
+    }
+
     protected T fetchNextUsingRowBound() {
         T result = fetchNextObjectFromDatabase();
         while (result != null && indexWithRowBound < rowBounds.getOffset()) {
@@ -0,0 +1,236 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * A {@link Publisher} that streams the rows of a select statement through a {@link Cursor}.
+ * <p>
+ * The statement is executed on the first {@link Subscription#request(long)} using a {@link SqlSession} owned by the
+ * subscription. Rows are mapped and emitted only as they are requested, and the outstanding demand is passed to the
+ * driver as the fetch size hint (bounded by {@link #setMaxFetchSize(int)}). The cursor and the session are closed
+ * when the stream completes, fails or is cancelled.
+ * <p>
+ * Elements are emitted on the thread calling {@link Subscription#request(long)}. Only one subscriber is supported.
+ *
+ * @param <T> the type of the mapped rows
+ */
+public class CursorPublisher<T> implements Publisher<T> {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final String statement;
+    private final Object parameter;
+    private final RowBounds rowBounds;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private int maxFetchSize = 1000;
+
+    public CursorPublisher(SqlSessionFactory sqlSessionFactory, String statement, Object parameter) {
+        this(sqlSessionFactory, statement, parameter, RowBounds.DEFAULT);
+    }
+
+    public CursorPublisher(SqlSessionFactory sqlSessionFactory, String statement, Object parameter, RowBounds rowBounds) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.statement = statement;
+        this.parameter = parameter;
+        this.rowBounds = rowBounds;
+    }
+
+    public int getMaxFetchSize() {
+        return maxFetchSize;
+    }
+
+    /**
+     * Upper bound of the fetch size hint derived from the subscriber demand.
+     */
+    public void setMaxFetchSize(int maxFetchSize) {
+        this.maxFetchSize = maxFetchSize;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("CursorPublisher allows only a single Subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new CursorSubscription(subscriber));
+    }
+
+    private class CursorSubscription implements Subscription {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // only accessed by the draining thread
+        private SqlSession sqlSession;
+        private Cursor<T> cursor;
+        private Iterator<T> iterator;
+        private boolean done;
+
+        CursorSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " elements, the demand must be positive");
+            } else {
+                addRequested(n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void addRequested(long n) {
+            for (;;) {
+                long current = requested.get();
+                if (current == Long.MAX_VALUE) {
+                    return;
+                }
+                long next = current + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+                if (requested.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (cancelled) {
+                release();
+                return;
+            }
+            if (invalidRequest != null) {
+                fail(invalidRequest);
+                return;
+            }
+            long demand = requested.get();
+            if (demand == 0) {
+                return;
+            }
+            long emitted = 0;
+            try {
+                open();
+                applyFetchSize(demand);
+                while (emitted != demand) {
+                    if (cancelled) {
+                        release();
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        complete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (cursor.isConsumed()) {
+                    complete();
+                    return;
+                }
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        private void open() {
+            if (cursor == null) {
+                sqlSession = sqlSessionFactory.openSession();
+                cursor = sqlSession.selectCursor(statement, parameter, rowBounds);
+                iterator = cursor.iterator();
+            }
+        }
+
+        private void applyFetchSize(long demand) {
+            if (cursor instanceof DefaultCursor) {
+                ((DefaultCursor<T>) cursor).setFetchSize((int) Math.min(demand, maxFetchSize));
+            }
+        }
+
+        private void complete() {
+            release();
+            subscriber.onComplete();
+        }
+
+        private void fail(Throwable t) {
+            release();
+            subscriber.onError(t);
+        }
+
+        private void release() {
+            done = true;
+            if (sqlSession != null) {
+                try {
+                    cursor.close();
+                } catch (Exception e) {
+                    // ignore
+                } finally {
+                    sqlSession.close();
+                    sqlSession = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+/**
+ * A provider of a potentially unbounded number of sequenced elements, publishing them according to the demand
+ * received from its {@link Subscriber}s.
+ * <p>
+ * The contract mirrors {@code org.reactivestreams.Publisher} so that it can be adapted to any Reactive Streams
+ * library with a one line bridge, without adding a dependency to the core.
+ *
+ * @param <T> the type of element signaled
+ */
+public interface Publisher<T> {
+
+    /**
+     * Request the publisher to start streaming data. Elements are only emitted after {@link Subscription#request(long)}.
+     *
+     * @param subscriber the subscriber that will consume signals from this publisher
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+/**
+ * Receives the signals of a {@link Publisher}. Mirrors {@code org.reactivestreams.Subscriber}.
+ *
+ * @param <T> the type of element signaled
+ */
+public interface Subscriber<T> {
+
+    /**
+     * Invoked once after calling {@link Publisher#subscribe(Subscriber)}. No data is emitted until
+     * {@link Subscription#request(long)} is invoked.
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Data notification sent by the {@link Publisher} in response to requests to {@link Subscription#request(long)}.
+     */
+    void onNext(T item);
+
+    /**
+     * Failed terminal state. No further events will be sent even if {@link Subscription#request(long)} is invoked again.
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Successful terminal state. No further events will be sent even if {@link Subscription#request(long)} is invoked again.
+     */
+    void onComplete();
+}
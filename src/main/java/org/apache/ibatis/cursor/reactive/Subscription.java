@@ -0,0 +1,35 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+/**
+ * A one-to-one lifecycle of a {@link Subscriber} subscribing to a {@link Publisher}.
+ * Mirrors {@code org.reactivestreams.Subscription}.
+ */
+public interface Subscription {
+
+    /**
+     * No events will be sent by a {@link Publisher} until demand is signaled via this method.
+     *
+     * @param n the strictly positive number of elements to request
+     */
+    void request(long n);
+
+    /**
+     * Request the {@link Publisher} to stop sending data and clean up resources.
+     */
+    void cancel();
+}
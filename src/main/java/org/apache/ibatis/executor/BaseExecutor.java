@@ -268,7 +268,7 @@ public abstract class BaseExecutor implements Executor {
 	}
 
 	/**
-	 * Apply a transaction timeout.
+	 * Apply a transaction timeout and the query deadline bound to the current thread.
 	 * 
 	 * @param statement a current statement
 	 * @throws SQLException if a database access error occurs, this method is called
@@ -278,6 +278,25 @@ public abstract class BaseExecutor implements Executor {
 	 */
 	protected void applyTransactionTimeout(Statement statement) throws SQLException {
 		StatementUtil.applyTransactionTimeout(statement, statement.getQueryTimeout(), transaction.getTimeout());
+		StatementUtil.applyQueryDeadline(statement);
+	}
+
+	/**
+	 * Restore the query timeout of the mapped statement, then apply a transaction timeout and the query deadline bound
+	 * to the current thread. Used for statements the executor reuses, so that a timeout lowered for a previous call
+	 * does not carry over to the next one.
+	 * 
+	 * @param statement a reused statement
+	 * @param ms the mapped statement it is executed for
+	 * @throws SQLException if a database access error occurs, this method is called
+	 *                      on a closed <code>Statement</code>
+	 * @since 3.4.6
+	 */
+	protected void applyTransactionTimeout(Statement statement, MappedStatement ms) throws SQLException {
+		Integer queryTimeout = ms.getTimeout() != null ? ms.getTimeout() : configuration.getDefaultStatementTimeout();
+		statement.setQueryTimeout(queryTimeout != null ? queryTimeout : 0);
+		StatementUtil.applyTransactionTimeout(statement, queryTimeout, transaction.getTimeout());
+		StatementUtil.applyQueryDeadline(statement);
 	}
 
 	private void handleLocallyCachedOutputParameters(MappedStatement ms, CacheKey key, Object parameter, BoundSql boundSql) {
@@ -51,7 +51,7 @@ public class BatchExecutor extends BaseExecutor {
 		if (sql.equals(currentSql) && ms.equals(currentStatement)) {
 			int last = statementList.size() - 1;
 			stmt = statementList.get(last);
-			applyTransactionTimeout(stmt);
+			applyTransactionTimeout(stmt, ms);
 			handler.parameterize(stmt);// fix Issues 322
 			BatchResult batchResult = batchResultList.get(last);
 			batchResult.addParameterObject(parameterObject);
@@ -108,11 +108,11 @@ public class BatchExecutor extends BaseExecutor {
 			}
 			for (int i = 0, n = statementList.size(); i < n; i++) {
 				Statement stmt = statementList.get(i);
-				applyTransactionTimeout(stmt);
 				BatchResult batchResult = batchResultList.get(i);
+				MappedStatement ms = batchResult.getMappedStatement();
+				applyTransactionTimeout(stmt, ms);
 				try {
 					batchResult.setUpdateCounts(stmt.executeBatch());
-					MappedStatement ms = batchResult.getMappedStatement();
 					List<Object> parameterObjects = batchResult.getParameterObjects();
 					KeyGenerator keyGenerator = ms.getKeyGenerator();
 					if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
@@ -10,7 +10,6 @@ import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.statement.StatementHandler;
-import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
@@ -33,7 +32,7 @@ public class ReuseExecutor extends BaseExecutor {
 	public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
 		Configuration configuration = ms.getConfiguration();
 		StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
-		Statement stmt = prepareStatement(handler, ms.getStatementLog());
+		Statement stmt = prepareStatement(handler, ms);
 		return handler.update(stmt);
 	}
 
@@ -41,7 +40,7 @@ public class ReuseExecutor extends BaseExecutor {
 	public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
 		Configuration configuration = ms.getConfiguration();
 		StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
-		Statement stmt = prepareStatement(handler, ms.getStatementLog());
+		Statement stmt = prepareStatement(handler, ms);
 		return handler.<E>query(stmt, resultHandler);
 	}
 
@@ -49,7 +48,7 @@ public class ReuseExecutor extends BaseExecutor {
 	protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
 		Configuration configuration = ms.getConfiguration();
 		StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
-		Statement stmt = prepareStatement(handler, ms.getStatementLog());
+		Statement stmt = prepareStatement(handler, ms);
 		return handler.<E>queryCursor(stmt);
 	}
 
@@ -62,15 +61,15 @@ public class ReuseExecutor extends BaseExecutor {
 		return Collections.emptyList();
 	}
 
-	private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+	private Statement prepareStatement(StatementHandler handler, MappedStatement ms) throws SQLException {
 		Statement stmt;
 		BoundSql boundSql = handler.getBoundSql();
 		String sql = boundSql.getSql();
 		if (hasStatementFor(sql)) {
 			stmt = getStatement(sql);
-			applyTransactionTimeout(stmt);
+			applyTransactionTimeout(stmt, ms);
 		} else {
-			Connection connection = getConnection(statementLog);
+			Connection connection = getConnection(ms.getStatementLog());
 			stmt = handler.prepare(connection, transaction.getTimeout());
 			putStatement(sql, stmt);
 		}
@@ -0,0 +1,289 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * The whole result of a {@code resultType="columnar"} query, stored column by column.
+ * <p>
+ * Rows are read straight from the {@code ResultSet} into one growable array per column, chosen from the JDBC type
+ * the driver reports: {@code int[]} for {@code TINYINT}, {@code SMALLINT} and {@code INTEGER}, {@code long[]} for
+ * {@code BIGINT}, {@code double[]} for {@code FLOAT}, {@code REAL} and {@code DOUBLE}, {@code String[]} for
+ * character types and {@code Object[]} (as returned by {@code getObject}) for everything else, including
+ * {@code DECIMAL} so that no precision is lost. No object is created per row and numbers are never boxed. SQL
+ * {@code NULL} is stored as {@code 0} in primitive columns and reported by {@link #isNull(String, int)}. Type
+ * handlers are not involved.
+ */
+public final class ColumnarResult {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final List<String> columnNames;
+	private final Column[] columns;
+	private final int rowCount;
+
+	private ColumnarResult(List<String> columnNames, Column[] columns, int rowCount) {
+		this.columnNames = columnNames;
+		this.columns = columns;
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * Reads at most {@code limit} rows of {@code rsw}, starting at its current position.
+	 */
+	static ColumnarResult read(ResultSetWrapper rsw, int limit) throws SQLException {
+		final List<String> columnNames = new ArrayList<String>(rsw.getColumnNames());
+		final List<JdbcType> jdbcTypes = rsw.getJdbcTypes();
+		final Column[] columns = new Column[columnNames.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new Column(i + 1, jdbcTypes.get(i));
+		}
+		final ResultSet rs = rsw.getResultSet();
+		int rowCount = 0;
+		while (rowCount < limit && rs.next()) {
+			for (Column column : columns) {
+				column.read(rs, rowCount);
+			}
+			rowCount++;
+		}
+		for (Column column : columns) {
+			column.trim(rowCount);
+		}
+		return new ColumnarResult(Collections.unmodifiableList(columnNames), columns, rowCount);
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return the column labels, in result set order
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Returns the array holding {@code column}: an {@code int[]}, {@code long[]}, {@code double[]},
+	 * {@code String[]} or {@code Object[]} of {@link #getRowCount()} elements.
+	 */
+	public Object getColumn(String column) {
+		return getColumnData(column).values;
+	}
+
+	public int[] getIntColumn(String column) {
+		return getColumnAs(column, int[].class);
+	}
+
+	public long[] getLongColumn(String column) {
+		return getColumnAs(column, long[].class);
+	}
+
+	public double[] getDoubleColumn(String column) {
+		return getColumnAs(column, double[].class);
+	}
+
+	public String[] getStringColumn(String column) {
+		return getColumnAs(column, String[].class);
+	}
+
+	public Object[] getObjectColumn(String column) {
+		return getColumnAs(column, Object[].class);
+	}
+
+	/**
+	 * Whether {@code column} was SQL {@code NULL} in the given 0-based row.
+	 */
+	public boolean isNull(String column, int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of range (" + rowCount + " rows).");
+		}
+		return getColumnData(column).isNull(row);
+	}
+
+	private <T> T getColumnAs(String column, Class<T> arrayType) {
+		final Object values = getColumnData(column).values;
+		if (!arrayType.isInstance(values)) {
+			throw new ExecutorException("Column '" + column + "' is held as " + values.getClass().getSimpleName()
+					+ ", not as " + arrayType.getSimpleName() + ".");
+		}
+		return arrayType.cast(values);
+	}
+
+	private Column getColumnData(String column) {
+		for (int i = 0; i < columns.length; i++) {
+			if (columnNames.get(i).equalsIgnoreCase(column)) {
+				return columns[i];
+			}
+		}
+		throw new ExecutorException("Column '" + column + "' is not part of this result. Columns are " + columnNames
+				+ ".");
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnarResult[rows=" + rowCount + ", columns=" + columnNames + "]";
+	}
+
+	private static final class Column {
+
+		private static final int KIND_INT = 0;
+		private static final int KIND_LONG = 1;
+		private static final int KIND_DOUBLE = 2;
+		private static final int KIND_STRING = 3;
+		private static final int KIND_OBJECT = 4;
+
+		private final int index;
+		private final int kind;
+		private Object values;
+		private int capacity = INITIAL_CAPACITY;
+		// only for primitive columns, allocated on the first null
+		private BitSet nulls;
+
+		Column(int index, JdbcType jdbcType) {
+			this.index = index;
+			this.kind = kindOf(jdbcType);
+			switch (kind) {
+			case KIND_INT:
+				values = new int[capacity];
+				break;
+			case KIND_LONG:
+				values = new long[capacity];
+				break;
+			case KIND_DOUBLE:
+				values = new double[capacity];
+				break;
+			case KIND_STRING:
+				values = new String[capacity];
+				break;
+			default:
+				values = new Object[capacity];
+			}
+		}
+
+		private static int kindOf(JdbcType jdbcType) {
+			if (jdbcType == null) {
+				return KIND_OBJECT;
+			}
+			switch (jdbcType) {
+			case TINYINT:
+			case SMALLINT:
+			case INTEGER:
+				return KIND_INT;
+			case BIGINT:
+				return KIND_LONG;
+			case FLOAT:
+			case REAL:
+			case DOUBLE:
+				return KIND_DOUBLE;
+			case CHAR:
+			case VARCHAR:
+			case LONGVARCHAR:
+			case NCHAR:
+			case NVARCHAR:
+			case LONGNVARCHAR:
+			case CLOB:
+			case NCLOB:
+				return KIND_STRING;
+			default:
+				return KIND_OBJECT;
+			}
+		}
+
+		void read(ResultSet rs, int row) throws SQLException {
+			if (row == capacity) {
+				grow();
+			}
+			switch (kind) {
+			case KIND_INT:
+				((int[]) values)[row] = rs.getInt(index);
+				markNull(rs, row);
+				break;
+			case KIND_LONG:
+				((long[]) values)[row] = rs.getLong(index);
+				markNull(rs, row);
+				break;
+			case KIND_DOUBLE:
+				((double[]) values)[row] = rs.getDouble(index);
+				markNull(rs, row);
+				break;
+			case KIND_STRING:
+				((String[]) values)[row] = rs.getString(index);
+				break;
+			default:
+				((Object[]) values)[row] = rs.getObject(index);
+			}
+		}
+
+		private void markNull(ResultSet rs, int row) throws SQLException {
+			if (rs.wasNull()) {
+				if (nulls == null) {
+					nulls = new BitSet();
+				}
+				nulls.set(row);
+			}
+		}
+
+		private void grow() {
+			capacity = capacity * 2;
+			resize(capacity);
+		}
+
+		void trim(int rowCount) {
+			if (rowCount != capacity) {
+				resize(rowCount);
+			}
+		}
+
+		boolean isNull(int row) {
+			if (kind == KIND_STRING || kind == KIND_OBJECT) {
+				return ((Object[]) values)[row] == null;
+			}
+			return nulls != null && nulls.get(row);
+		}
+
+		private void resize(int length) {
+			switch (kind) {
+			case KIND_INT:
+				values = Arrays.copyOf((int[]) values, length);
+				break;
+			case KIND_LONG:
+				values = Arrays.copyOf((long[]) values, length);
+				break;
+			case KIND_DOUBLE:
+				values = Arrays.copyOf((double[]) values, length);
+				break;
+			case KIND_STRING:
+				values = Arrays.copyOf((String[]) values, length);
+				break;
+			default:
+				values = Arrays.copyOf((Object[]) values, length);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Maps auto-mapped {@code resultType="map"} rows onto {@link CompactRowMap}s: one value array per row instead of a
+ * {@code HashMap}, a {@code MetaObject} and a property tokenizer per column.
+ */
+final class CompactMapRowMapper implements RowMapper {
+
+	private final CompactRowMap.Layout layout;
+	private final String[] columns;
+	private final int[] columnIndexes;
+	private final TypeHandler<?>[] typeHandlers;
+
+	private CompactMapRowMapper(String[] columns, int[] columnIndexes, TypeHandler<?>[] typeHandlers) {
+		this.layout = new CompactRowMap.Layout(columns);
+		this.columns = columns;
+		this.columnIndexes = columnIndexes;
+		this.typeHandlers = typeHandlers;
+	}
+
+	/**
+	 * @return a mapper for {@code resultMap}, or {@code null} when its rows need the reflective path: a concrete map
+	 *         type, explicit result mappings, custom object or wrapper factories, or column labels that the
+	 *         reflective path would treat as nested properties or write twice
+	 */
+	static RowMapper compile(ResultSetWrapper rsw, ResultMap resultMap, boolean applyAutomaticMappings,
+			Configuration configuration) {
+		if (resultMap.getType() != Map.class || !applyAutomaticMappings || resultMap.getDiscriminator() != null
+				|| !resultMap.getResultMappings().isEmpty()
+				|| configuration.getObjectFactory().getClass() != DefaultObjectFactory.class
+				|| configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class) {
+			return null;
+		}
+		final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+		final List<String> columnNames = rsw.getColumnNames();
+		final int columnCount = columnNames.size();
+		final Set<String> seen = new HashSet<String>();
+		final String[] columns = new String[columnCount];
+		final int[] columnIndexes = new int[columnCount];
+		final TypeHandler<?>[] typeHandlers = new TypeHandler<?>[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			final String column = columnNames.get(i);
+			if (column.indexOf('.') >= 0 || column.indexOf('[') >= 0 || !seen.add(column)
+					|| !typeHandlerRegistry.hasTypeHandler(Object.class, rsw.getJdbcType(column))) {
+				return null;
+			}
+			columns[i] = column;
+			typeHandlers[i] = rsw.getTypeHandler(Object.class, column);
+			columnIndexes[i] = ResultSetWrapper.isBuiltInTypeHandler(typeHandlers[i]) ? rsw.getColumnIndex(column) : -1;
+		}
+		return new CompactMapRowMapper(columns, columnIndexes, typeHandlers);
+	}
+
+	@Override
+	public Object mapRow(ResultSet rs, ObjectFactory objectFactory, Configuration configuration) throws SQLException {
+		final Object[] values = new Object[layout.size()];
+		boolean foundValues = false;
+		for (int i = 0; i < values.length; i++) {
+			final Object value = columnIndexes[i] > 0 ? typeHandlers[i].getResult(rs, columnIndexes[i])
+					: typeHandlers[i].getResult(rs, columns[i]);
+			if (value != null) {
+				foundValues = true;
+			}
+			values[i] = value;
+		}
+		return foundValues || configuration.isReturnInstanceForEmptyRow()
+				? new CompactRowMap(layout, values, configuration.isCallSettersOnNulls()) : null;
+	}
+
+}
@@ -0,0 +1,149 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable row of a {@code resultType="map"} query.
+ * <p>
+ * All rows of a result set share one {@link Layout} holding the column labels and their positions, so a row only
+ * owns its value array. A {@code null} column is absent from the map, unless {@code callSettersOnNulls} was set
+ * when the row was read, exactly like the {@code HashMap} rows of the reflective path.
+ */
+public final class CompactRowMap extends AbstractMap<String, Object> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Layout layout;
+	private final Object[] values;
+	private final boolean nullsPresent;
+	private final int size;
+
+	CompactRowMap(Layout layout, Object[] values, boolean nullsPresent) {
+		this.layout = layout;
+		this.values = values;
+		this.nullsPresent = nullsPresent;
+		int count = values.length;
+		if (!nullsPresent) {
+			for (Object value : values) {
+				if (value == null) {
+					count--;
+				}
+			}
+		}
+		this.size = count;
+	}
+
+	@Override
+	public Object get(Object key) {
+		final Integer index = layout.indexes.get(key);
+		return index == null ? null : values[index];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		final Integer index = layout.indexes.get(key);
+		return index != null && isPresent(index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new AbstractSet<Map.Entry<String, Object>>() {
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private boolean isPresent(int index) {
+		return nullsPresent || values[index] != null;
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+		private int next = advance(0);
+
+		private int advance(int from) {
+			int index = from;
+			while (index < values.length && !isPresent(index)) {
+				index++;
+			}
+			return index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < values.length;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final int index = next;
+			next = advance(index + 1);
+			return new SimpleImmutableEntry<String, Object>(layout.keys[index], values[index]);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Column labels and their value positions, shared by every row of one column layout.
+	 */
+	static final class Layout implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] keys;
+		private final Map<String, Integer> indexes;
+
+		Layout(String[] keys) {
+			this.keys = keys;
+			this.indexes = new HashMap<String, Integer>();
+			for (int i = 0; i < keys.length; i++) {
+				indexes.put(keys[i], i);
+			}
+		}
+
+		int size() {
+			return keys.length;
+		}
+	}
+
+}
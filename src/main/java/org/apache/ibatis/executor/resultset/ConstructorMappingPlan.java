@@ -0,0 +1,273 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.Jdk;
+import org.apache.ibatis.reflection.ParamNameUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Creates result objects through a constructor resolved once per result map and column layout, either from the
+ * {@code <constructor>} mappings or by matching the columns to a constructor signature. The argument columns,
+ * their indexes and type handlers are resolved up front, and with the {@link DefaultObjectFactory} the constructor
+ * is invoked directly instead of being looked up again for every row.
+ */
+final class ConstructorMappingPlan {
+
+	static final ConstructorMappingPlan NOT_APPLICABLE = new ConstructorMappingPlan(null, null, new String[0],
+			new int[0], new TypeHandler<?>[0], null, false);
+
+	private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<Class<?>, Object>();
+	private static final Method GET_RECORD_COMPONENTS = recordComponentsMethod();
+
+	static {
+		PRIMITIVE_DEFAULTS.put(boolean.class, Boolean.FALSE);
+		PRIMITIVE_DEFAULTS.put(byte.class, (byte) 0);
+		PRIMITIVE_DEFAULTS.put(short.class, (short) 0);
+		PRIMITIVE_DEFAULTS.put(char.class, (char) 0);
+		PRIMITIVE_DEFAULTS.put(int.class, 0);
+		PRIMITIVE_DEFAULTS.put(long.class, 0L);
+		PRIMITIVE_DEFAULTS.put(float.class, 0F);
+		PRIMITIVE_DEFAULTS.put(double.class, 0D);
+	}
+
+	private static Method recordComponentsMethod() {
+		try {
+			return Class.class.getMethod("getRecordComponents");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private final Class<?> type;
+	private final Constructor<?> constructor;
+	private final List<Class<?>> argTypes;
+	private final String[] columns;
+	private final int[] columnIndexes;
+	private final TypeHandler<?>[] typeHandlers;
+	private final ResultMapping[] resultMappings;
+	private final Object[] nullValues;
+
+	/**
+	 * @param columns
+	 *          the column of each argument
+	 * @param columnIndexes
+	 *          the index of each column, or {@code -1} to read it by name
+	 * @param resultMappings
+	 *          the {@code <constructor>} mapping of each argument, named when reading it fails, or {@code null} for
+	 *          automatic constructor mapping
+	 * @param defaultPrimitives
+	 *          whether a {@code NULL} value of a primitive argument is passed as its default value
+	 */
+	ConstructorMappingPlan(Class<?> type, Constructor<?> constructor, String[] columns, int[] columnIndexes,
+			TypeHandler<?>[] typeHandlers, ResultMapping[] resultMappings, boolean defaultPrimitives) {
+		this.type = type;
+		this.constructor = constructor;
+		this.argTypes = constructor == null ? Collections.<Class<?>> emptyList()
+				: Collections.unmodifiableList(Arrays.<Class<?>> asList(constructor.getParameterTypes()));
+		this.columns = columns;
+		this.columnIndexes = new int[columnIndexes.length];
+		for (int i = 0; i < columnIndexes.length; i++) {
+			this.columnIndexes[i] = ResultSetWrapper.isBuiltInTypeHandler(typeHandlers[i]) ? columnIndexes[i] : -1;
+		}
+		this.typeHandlers = typeHandlers;
+		this.resultMappings = resultMappings;
+		this.nullValues = new Object[argTypes.size()];
+		if (defaultPrimitives) {
+			for (int i = 0; i < nullValues.length; i++) {
+				nullValues[i] = PRIMITIVE_DEFAULTS.get(argTypes.get(i));
+			}
+		}
+		if (constructor != null && !constructor.isAccessible()) {
+			constructor.setAccessible(true);
+		}
+	}
+
+	boolean isApplicable() {
+		return constructor != null;
+	}
+
+	/**
+	 * Reads the arguments from the current row of {@code rs} and creates the result object, or returns {@code null}
+	 * when all of them are {@code null}, like the reflective constructor mapping.
+	 *
+	 * @param constructorArgTypes
+	 *          receives the argument types, may be {@code null}
+	 * @param constructorArgs
+	 *          receives the argument values, may be {@code null}
+	 */
+	Object createResultObject(ResultSet rs, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes,
+			List<Object> constructorArgs) throws SQLException {
+		final Object[] args = new Object[columns.length];
+		boolean foundValues = false;
+		for (int i = 0; i < args.length; i++) {
+			final Object value = getArgument(rs, i);
+			foundValues = value != null || foundValues;
+			args[i] = value == null ? nullValues[i] : value;
+		}
+		if (constructorArgTypes != null) {
+			constructorArgTypes.addAll(argTypes);
+		}
+		if (constructorArgs != null) {
+			constructorArgs.addAll(Arrays.asList(args));
+		}
+		if (!foundValues) {
+			return null;
+		}
+		if (objectFactory.getClass() == DefaultObjectFactory.class) {
+			try {
+				return constructor.newInstance(args);
+			} catch (IllegalAccessException e) {
+				// fall through, the object factory reports the failure as usual
+			} catch (InvocationTargetException e) {
+				// report what the constructor threw, as a constructor called by the application would
+				final Throwable cause = ExceptionUtil.unwrapThrowable(e);
+				if (cause instanceof SQLException) {
+					throw (SQLException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new ReflectionException("Error instantiating " + type + ". Cause: " + cause, cause);
+			} catch (InstantiationException e) {
+				throw new ReflectionException("Error instantiating " + type + ". Cause: " + e, e);
+			} catch (IllegalArgumentException e) {
+				throw new ReflectionException("Error instantiating " + type + " with invalid values "
+						+ Arrays.asList(args) + ". Cause: " + e, e);
+			}
+		}
+		return objectFactory.create(type, argTypes, Arrays.asList(args));
+	}
+
+	private Object getArgument(ResultSet rs, int i) throws SQLException {
+		try {
+			return columnIndexes[i] > 0 ? typeHandlers[i].getResult(rs, columnIndexes[i])
+					: typeHandlers[i].getResult(rs, columns[i]);
+		} catch (ResultMapException e) {
+			if (resultMappings == null) {
+				throw e;
+			}
+			throw new ExecutorException("Could not process result for mapping: " + resultMappings[i], e);
+		} catch (SQLException e) {
+			if (resultMappings == null) {
+				throw e;
+			}
+			throw new ExecutorException("Could not process result for mapping: " + resultMappings[i], e);
+		}
+	}
+
+	/**
+	 * Returns the fields of {@code type} in the parameter order of its canonical constructor, the constructor taking
+	 * one argument per instance field as the constructor of a Java record does, or {@code null} when {@code type} has
+	 * no such constructor. The order is taken from the record components of a record, then from the constructor's
+	 * parameter names when the class was compiled with {@code -parameters}, and otherwise from the declared field
+	 * order, which must match the constructor's signature.
+	 */
+	static List<Field> findCanonicalComponents(Class<?> type, boolean useActualParamName) {
+		final Map<String, Field> fields = new LinkedHashMap<String, Field>();
+		for (Field field : type.getDeclaredFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+				fields.put(field.getName(), field);
+			}
+		}
+		if (fields.isEmpty()) {
+			return null;
+		}
+		List<String> names = recordComponentNames(type);
+		if (names == null && useActualParamName && Jdk.parameterExists) {
+			for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+				if (candidate.getParameterTypes().length == fields.size()) {
+					final List<String> parameterNames = ParamNameUtil.getParamNames(candidate);
+					if (fields.keySet().containsAll(parameterNames)
+							&& new HashSet<String>(parameterNames).size() == fields.size()) {
+						names = parameterNames;
+						break;
+					}
+				}
+			}
+		}
+		final List<Field> components = new ArrayList<Field>(fields.size());
+		if (names == null) {
+			components.addAll(fields.values());
+		} else {
+			for (String name : names) {
+				final Field field = fields.get(name);
+				if (field == null) {
+					return null;
+				}
+				components.add(field);
+			}
+		}
+		if (components.size() != fields.size()) {
+			return null;
+		}
+		final Class<?>[] componentTypes = new Class<?>[components.size()];
+		for (int i = 0; i < componentTypes.length; i++) {
+			componentTypes[i] = components.get(i).getType();
+		}
+		try {
+			type.getDeclaredConstructor(componentTypes);
+			return components;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	// Class.getRecordComponents() exists since Java 16 and returns null for classes that are not records
+	private static List<String> recordComponentNames(Class<?> type) {
+		if (GET_RECORD_COMPONENTS == null) {
+			return null;
+		}
+		try {
+			final Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+			if (components == null) {
+				return null;
+			}
+			final List<String> names = new ArrayList<String>(components.length);
+			for (Object component : components) {
+				names.add((String) component.getClass().getMethod("getName").invoke(component));
+			}
+			return names;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+}
@@ -24,6 +24,7 @@ import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
@@ -34,6 +35,7 @@ import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -65,10 +67,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 	private final ReflectorFactory reflectorFactory;
 
 	// nested resultmaps
-	private final Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
+	private final Map<RowKey, Object> nestedResultObjects = new HashMap<RowKey, Object>();
 	private final Map<String, Object> ancestorObjects = new HashMap<String, Object>();
 	private Object previousRowValue;
 
+	// rows read by handleResultSets, feeds the adaptive fetch size history
+	private int rowsRead;
+
+	// results are consumed one by one through a Cursor
+	private boolean cursorResults;
+
 	// multiple resultsets
 	private final Map<String, ResultMapping> nextResultMaps = new HashMap<String, ResultMapping>();
 	private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<CacheKey, List<PendingRelation>>();
@@ -147,7 +155,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		try {
 			final String resultMapId = parameterMapping.getResultMapId();
 			final ResultMap resultMap = configuration.getResultMap(resultMapId);
-			final ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration);
+			final ResultSetWrapper rsw = newResultSetWrapper(rs);
 			if (this.resultHandler == null) {
 				final DefaultResultHandler resultHandler = new DefaultResultHandler(objectFactory);
 				handleRowValues(rsw, resultMap, resultHandler, new RowBounds(), null);
@@ -199,6 +207,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 			}
 		}
 
+		if (configuration.isAdaptiveFetchSizeEnabled()) {
+			mappedStatement.getFetchSizeStatistics().recordRows(rowsRead);
+		}
 		return collapseSingleResultList(multipleResults);
 	}
 
@@ -217,6 +228,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		}
 
 		ResultMap resultMap = resultMaps.get(0);
+		cursorResults = true;
 		return new DefaultCursor<E>(this, resultMap, rsw, rowBounds);
 	}
 
@@ -234,7 +246,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 				}
 			}
 		}
-		return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+		return rs != null ? newResultSetWrapper(rs) : null;
+	}
+
+	private ResultSetWrapper newResultSetWrapper(ResultSet rs) throws SQLException {
+		return new ResultSetWrapper(rs, configuration,
+				mappedStatement != null ? mappedStatement.getResultSetLayoutCache() : null);
 	}
 
 	private ResultSetWrapper getNextResultSet(Statement stmt) throws SQLException {
@@ -247,7 +264,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 					if (rs == null) {
 						return getNextResultSet(stmt);
 					} else {
-						return new ResultSetWrapper(rs, configuration);
+						return newResultSetWrapper(rs);
 					}
 				}
 			}
@@ -323,21 +340,76 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 	}
 
 	protected void checkResultHandler() {
-		if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()) {
+		if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !isStreamingNestedResults()) {
 			throw new ExecutorException("Mapped Statements with nested result mappings cannot be safely used with a custom ResultHandler. " + "Use safeResultHandlerEnabled=false setting to bypass this check " + "or ensure your statement returns ordered data and set resultOrdered=true on it.");
 		}
 	}
 
 	private void handleRowValuesForSimpleResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
+		if (resultMap.getType() == ColumnarResult.class && parentMapping == null) {
+			handleColumnarResult(rsw, resultHandler, rowBounds);
+			return;
+		}
+		final RowMappingPlan parallelPlan = getParallelMappingPlan(rsw, resultMap, resultHandler, parentMapping);
+		if (parallelPlan != null) {
+			handleRowValuesInParallel(rsw, parallelPlan, resultHandler, rowBounds);
+			return;
+		}
 		DefaultResultContext<Object> resultContext = new DefaultResultContext<Object>();
 		skipRows(rsw.getResultSet(), rowBounds);
 		while (shouldProcessMoreRows(resultContext, rowBounds) && rsw.getResultSet().next()) {
+			rowsRead++;
 			ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
 			Object rowValue = getRowValue(rsw, discriminatedResultMap);
 			storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
 		}
 	}
 
+	private void handleColumnarResult(ResultSetWrapper rsw, ResultHandler<?> resultHandler, RowBounds rowBounds)
+			throws SQLException {
+		skipRows(rsw.getResultSet(), rowBounds);
+		final ColumnarResult columnarResult = ColumnarResult.read(rsw, rowBounds.getLimit());
+		rowsRead += columnarResult.getRowCount();
+		callResultHandler(resultHandler, new DefaultResultContext<Object>(), columnarResult);
+	}
+
+	/**
+	 * Returns the plan to map the rows with in parallel, or {@code null} to map them on this thread. Rows are only
+	 * mapped in parallel into the result list of a plain query, for result maps compiled into a
+	 * {@link RowMappingPlan} and created by the default object factory.
+	 */
+	private RowMappingPlan getParallelMappingPlan(ResultSetWrapper rsw, ResultMap resultMap,
+			ResultHandler<?> resultHandler, ResultMapping parentMapping) throws SQLException {
+		if (!configuration.isParallelResultMappingEnabled() || parentMapping != null || cursorResults
+				|| !(resultHandler instanceof DefaultResultHandler) || resultMap.getDiscriminator() != null
+				|| objectFactory.getClass() != DefaultObjectFactory.class) {
+			return null;
+		}
+		final RowMapper rowMapper = getRowMapper(rsw, resultMap);
+		return rowMapper instanceof RowMappingPlan ? (RowMappingPlan) rowMapper : null;
+	}
+
+	private void handleRowValuesInParallel(ResultSetWrapper rsw, RowMappingPlan plan, ResultHandler<?> resultHandler,
+			RowBounds rowBounds) throws SQLException {
+		final DefaultResultContext<Object> resultContext = new DefaultResultContext<Object>();
+		final ParallelRowMapping parallelMapping = new ParallelRowMapping(plan, objectFactory, configuration,
+				configuration.getParallelResultMappingBatchSize());
+		final ResultSet rs = rsw.getResultSet();
+		skipRows(rs, rowBounds);
+		int rowsLeft = rowBounds.getLimit();
+		while (rowsLeft > 0 && rs.next()) {
+			rowsRead++;
+			rowsLeft--;
+			parallelMapping.addRow(rs);
+			for (Object rowValue : parallelMapping.takeMapped()) {
+				callResultHandler(resultHandler, resultContext, rowValue);
+			}
+		}
+		for (Object rowValue : parallelMapping.finish()) {
+			callResultHandler(resultHandler, resultContext, rowValue);
+		}
+	}
+
 	private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
 		if (parentMapping != null) {
 			linkToParents(rs, parentMapping, rowValue);
@@ -373,6 +445,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 	//
 
 	private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+		final RowMapper rowMapper = getRowMapper(rsw, resultMap);
+		if (rowMapper != null) {
+			return rowMapper.mapRow(rsw.getResultSet(), objectFactory, configuration);
+		}
 		final ResultLoaderMap lazyLoader = new ResultLoaderMap();
 		Object rowValue = createResultObject(rsw, resultMap, lazyLoader, null);
 		if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
@@ -388,6 +464,41 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		return rowValue;
 	}
 
+	private RowMapper getRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+		if (!configuration.isCompiledRowMappingEnabled()) {
+			return null;
+		}
+		RowMapper rowMapper = rsw.getRowMapper(resultMap);
+		if (rowMapper == null) {
+			final RowMappingPlanCache planCache = configuration.getRowMappingPlanCache();
+			final String planKey = resultMap.getId() + "@" + rsw.getColumnLayoutKey();
+			rowMapper = planCache.get(planKey);
+			if (rowMapper == null) {
+				rowMapper = compileRowMapper(rsw, resultMap);
+				planCache.put(planKey, rowMapper);
+			}
+			rsw.putRowMapper(resultMap, rowMapper);
+		}
+		return rowMapper == RowMappingPlan.NOT_APPLICABLE ? null : rowMapper;
+	}
+
+	private RowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+		if (resultMap.getDiscriminator() == null && hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
+			return PrimitiveRowMapper.compile(rsw, resultMap);
+		}
+		final boolean applyAutomaticMappings = shouldApplyAutomaticMappings(resultMap, false);
+		if (configuration.isCompactMapResultsEnabled()) {
+			final RowMapper mapRowMapper = CompactMapRowMapper.compile(rsw, resultMap, applyAutomaticMappings,
+					configuration);
+			if (mapRowMapper != null) {
+				return mapRowMapper;
+			}
+		}
+		final RowMappingPlan plan = RowMappingPlan.compile(rsw, resultMap, applyAutomaticMappings, configuration);
+		final RowMapperFactory rowMapperFactory = configuration.getRowMapperFactory();
+		return plan.isApplicable() && rowMapperFactory != null ? rowMapperFactory.createRowMapper(plan) : plan;
+	}
+
 	private boolean shouldApplyAutomaticMappings(ResultMap resultMap, boolean isNested) {
 		if (resultMap.getAutoMapping() != null) {
 			return resultMap.getAutoMapping();
@@ -417,8 +528,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 			if (propertyMapping.isCompositeResult()
 					|| (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
 					|| propertyMapping.getResultSet() != null) {
-				Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader,
-						columnPrefix);
+				Object value = getPropertyMappingValue(rsw, metaObject, propertyMapping, lazyLoader, columnPrefix);
 				// issue #541 make property optional
 				final String property = propertyMapping.getProperty();
 				if (property == null) {
@@ -440,8 +550,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		return foundValues;
 	}
 
-	private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping,
-			ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
+	private Object getPropertyMappingValue(ResultSetWrapper rsw, MetaObject metaResultObject,
+			ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
+		final ResultSet rs = rsw.getResultSet();
 		if (propertyMapping.getNestedQueryId() != null) {
 			return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
 		} else if (propertyMapping.getResultSet() != null) {
@@ -450,7 +561,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		} else {
 			final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
 			final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-			return typeHandler.getResult(rs, column);
+			return rsw.getResult(typeHandler, column);
 		}
 	}
 
@@ -503,7 +614,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		boolean foundValues = false;
 		if (!autoMapping.isEmpty()) {
 			for (UnMappedColumnAutoMapping mapping : autoMapping) {
-				final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+				final Object value = rsw.getResult(mapping.typeHandler, mapping.column);
 				if (value != null) {
 					foundValues = true;
 				}
@@ -580,6 +691,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 	private Object createResultObject(ResultSetWrapper rsw, ResultMap resultMap, ResultLoaderMap lazyLoader,
 			String columnPrefix) throws SQLException {
 		this.useConstructorMappings = false; // reset previous mapping result
+		final ConstructorMappingPlan constructorPlan = getConstructorMappingPlan(rsw, resultMap, columnPrefix);
+		if (constructorPlan != null) {
+			final Object resultObject = constructorPlan.createResultObject(rsw.getResultSet(), objectFactory, null, null);
+			this.useConstructorMappings = resultObject != null;
+			return resultObject;
+		}
 		final List<Class<?>> constructorArgTypes = new ArrayList<Class<?>>();
 		final List<Object> constructorArgs = new ArrayList<Object>();
 		Object resultObject = createResultObject(rsw, resultMap, constructorArgTypes, constructorArgs, columnPrefix);
@@ -612,7 +729,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		} else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
 			return objectFactory.create(resultType);
 		} else if (shouldApplyAutomaticMappings(resultMap, false)) {
-			return createByConstructorSignature(rsw, resultType, constructorArgTypes, constructorArgs, columnPrefix);
+			return createByConstructorSignature(rsw, resultMap, constructorArgTypes, constructorArgs, columnPrefix);
 		}
 		throw new ExecutorException("Do not know how to create an instance of " + resultType);
 	}
@@ -647,8 +764,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
 	}
 
-	private Object createByConstructorSignature(ResultSetWrapper rsw, Class<?> resultType,
+	private Object createByConstructorSignature(ResultSetWrapper rsw, ResultMap resultMap,
 			List<Class<?>> constructorArgTypes, List<Object> constructorArgs, String columnPrefix) throws SQLException {
+		final Class<?> resultType = resultMap.getType();
 		final Constructor<?>[] constructors = resultType.getDeclaredConstructors();
 		final Constructor<?> annotatedConstructor = findAnnotatedConstructor(constructors);
 		if (annotatedConstructor != null) {
@@ -662,10 +780,170 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 				}
 			}
 		}
+		ConstructorMappingPlan canonicalPlan = rsw.getCanonicalConstructorPlan(resultMap, columnPrefix);
+		if (canonicalPlan == null) {
+			canonicalPlan = compileCanonicalConstructorPlan(rsw, resultType, columnPrefix);
+			if (canonicalPlan == null) {
+				canonicalPlan = ConstructorMappingPlan.NOT_APPLICABLE;
+			}
+			rsw.putCanonicalConstructorPlan(resultMap, columnPrefix, canonicalPlan);
+		}
+		if (canonicalPlan.isApplicable()) {
+			return canonicalPlan.createResultObject(rsw.getResultSet(), objectFactory, constructorArgTypes,
+					constructorArgs);
+		}
 		throw new ExecutorException(
 				"No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
 	}
 
+	/**
+	 * Returns the compiled constructor of {@code resultMap} for the columns of {@code rsw}, or {@code null} when
+	 * its result objects are created by the reflective path: without constructor mappings or automatic constructor
+	 * mapping, with nested selects or nested result maps as arguments, or with lazily loaded properties that need a
+	 * proxy of the result object.
+	 */
+	private ConstructorMappingPlan getConstructorMappingPlan(ResultSetWrapper rsw, ResultMap resultMap,
+			String columnPrefix) throws SQLException {
+		if (!configuration.isCompiledRowMappingEnabled()) {
+			return null;
+		}
+		ConstructorMappingPlan plan = rsw.getConstructorMappingPlan(resultMap, columnPrefix);
+		if (plan == null) {
+			plan = compileConstructorMappingPlan(rsw, resultMap, columnPrefix);
+			rsw.putConstructorMappingPlan(resultMap, columnPrefix, plan);
+		}
+		return plan.isApplicable() ? plan : null;
+	}
+
+	private ConstructorMappingPlan compileConstructorMappingPlan(ResultSetWrapper rsw, ResultMap resultMap,
+			String columnPrefix) throws SQLException {
+		final Class<?> resultType = resultMap.getType();
+		if (resultType.isInterface() || hasTypeHandlerForResultObject(rsw, resultType)) {
+			return ConstructorMappingPlan.NOT_APPLICABLE;
+		}
+		for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+			if (propertyMapping.getNestedQueryId() != null && propertyMapping.isLazy()) {
+				return ConstructorMappingPlan.NOT_APPLICABLE;
+			}
+		}
+		final List<ResultMapping> constructorMappings = resultMap.getConstructorResultMappings();
+		if (!constructorMappings.isEmpty()) {
+			return compileConstructorMappings(rsw, resultType, constructorMappings, columnPrefix);
+		} else if (MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor()
+				|| !shouldApplyAutomaticMappings(resultMap, false)) {
+			return ConstructorMappingPlan.NOT_APPLICABLE;
+		}
+		final Constructor<?>[] constructors = resultType.getDeclaredConstructors();
+		Constructor<?> constructor = findAnnotatedConstructor(constructors);
+		if (constructor == null) {
+			for (Constructor<?> candidate : constructors) {
+				if (allowedConstructor(candidate, rsw.getClassNames())) {
+					constructor = candidate;
+					break;
+				}
+			}
+		}
+		if (constructor == null) {
+			final ConstructorMappingPlan canonicalPlan = compileCanonicalConstructorPlan(rsw, resultType, columnPrefix);
+			return canonicalPlan != null ? canonicalPlan : ConstructorMappingPlan.NOT_APPLICABLE;
+		}
+		final Class<?>[] parameterTypes = constructor.getParameterTypes();
+		if (parameterTypes.length > rsw.getColumnNames().size()) {
+			return ConstructorMappingPlan.NOT_APPLICABLE;
+		}
+		final String[] columns = new String[parameterTypes.length];
+		final int[] columnIndexes = new int[parameterTypes.length];
+		final TypeHandler<?>[] typeHandlers = new TypeHandler<?>[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			final String columnName = rsw.getColumnNames().get(i);
+			columns[i] = prependPrefix(columnName, columnPrefix);
+			columnIndexes[i] = rsw.getColumnIndex(columns[i]);
+			typeHandlers[i] = rsw.getTypeHandler(parameterTypes[i], columnName);
+		}
+		return new ConstructorMappingPlan(resultType, constructor, columns, columnIndexes, typeHandlers, null, false);
+	}
+
+	private ConstructorMappingPlan compileConstructorMappings(ResultSetWrapper rsw, Class<?> resultType,
+			List<ResultMapping> constructorMappings, String columnPrefix) {
+		final Class<?>[] parameterTypes = new Class<?>[constructorMappings.size()];
+		final String[] columns = new String[parameterTypes.length];
+		final int[] columnIndexes = new int[parameterTypes.length];
+		final TypeHandler<?>[] typeHandlers = new TypeHandler<?>[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			final ResultMapping constructorMapping = constructorMappings.get(i);
+			if (constructorMapping.getNestedQueryId() != null || constructorMapping.getNestedResultMapId() != null
+					|| constructorMapping.getColumn() == null || constructorMapping.getJavaType() == null
+					|| constructorMapping.getTypeHandler() == null) {
+				return ConstructorMappingPlan.NOT_APPLICABLE;
+			}
+			parameterTypes[i] = constructorMapping.getJavaType();
+			columns[i] = prependPrefix(constructorMapping.getColumn(), columnPrefix);
+			columnIndexes[i] = rsw.getColumnIndex(columns[i]);
+			typeHandlers[i] = constructorMapping.getTypeHandler();
+		}
+		final ResultMapping[] resultMappings = constructorMappings.toArray(new ResultMapping[parameterTypes.length]);
+		try {
+			return new ConstructorMappingPlan(resultType, resultType.getDeclaredConstructor(parameterTypes), columns,
+					columnIndexes, typeHandlers, resultMappings, false);
+		} catch (NoSuchMethodException e) {
+			// left to the object factory, which reports it
+			return ConstructorMappingPlan.NOT_APPLICABLE;
+		}
+	}
+
+	/**
+	 * Maps the columns onto the canonical constructor of {@code resultType} by matching column labels to the
+	 * constructor's fields, so immutable classes shaped like Java records need neither a constructor mapping nor
+	 * columns in constructor order. Returns {@code null} when {@code resultType} has no canonical constructor or
+	 * a field has no column.
+	 */
+	private ConstructorMappingPlan compileCanonicalConstructorPlan(ResultSetWrapper rsw, Class<?> resultType,
+			String columnPrefix) throws SQLException {
+		final List<Field> components = ConstructorMappingPlan.findCanonicalComponents(resultType,
+				configuration.isUseActualParamName());
+		if (components == null) {
+			return null;
+		}
+		final Class<?>[] parameterTypes = new Class<?>[components.size()];
+		final String[] columns = new String[parameterTypes.length];
+		final int[] columnIndexes = new int[parameterTypes.length];
+		final TypeHandler<?>[] typeHandlers = new TypeHandler<?>[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			final Field component = components.get(i);
+			parameterTypes[i] = component.getType();
+			final String columnName = findColumnForComponent(rsw, component.getName(), columnPrefix);
+			if (columnName == null) {
+				return null;
+			}
+			columns[i] = columnName;
+			columnIndexes[i] = rsw.getColumnIndex(columnName);
+			typeHandlers[i] = rsw.getTypeHandler(parameterTypes[i], columnName);
+		}
+		try {
+			return new ConstructorMappingPlan(resultType, resultType.getDeclaredConstructor(parameterTypes), columns,
+					columnIndexes, typeHandlers, null, true);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private String findColumnForComponent(ResultSetWrapper rsw, String component, String columnPrefix) {
+		final String upperPrefix = columnPrefix == null ? "" : columnPrefix.toUpperCase(Locale.ENGLISH);
+		for (String columnName : rsw.getColumnNames()) {
+			if (!columnName.toUpperCase(Locale.ENGLISH).startsWith(upperPrefix)) {
+				continue;
+			}
+			String property = columnName.substring(upperPrefix.length());
+			if (configuration.isMapUnderscoreToCamelCase()) {
+				property = property.replace("_", "");
+			}
+			if (property.equalsIgnoreCase(component)) {
+				return columnName;
+			}
+		}
+		return null;
+	}
+
 	private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes,
 			List<Object> constructorArgs, String columnPrefix, Constructor<?> constructor) throws SQLException {
 		boolean foundValues = false;
@@ -882,13 +1160,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 			ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
 		final DefaultResultContext<Object> resultContext = new DefaultResultContext<Object>();
 		skipRows(rsw.getResultSet(), rowBounds);
+		final boolean streaming = isStreamingNestedResults();
 		Object rowValue = previousRowValue;
 		while (shouldProcessMoreRows(resultContext, rowBounds) && rsw.getResultSet().next()) {
+			rowsRead++;
 			final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
-			final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+			final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
 			Object partialObject = nestedResultObjects.get(rowKey);
 			// issue #577 && #542
-			if (mappedStatement.isResultOrdered()) {
+			if (streaming) {
 				if (partialObject == null && rowValue != null) {
 					nestedResultObjects.clear();
 					storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
@@ -901,7 +1181,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 				}
 			}
 		}
-		if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+		if (rowValue != null && streaming && shouldProcessMoreRows(resultContext, rowBounds)) {
 			storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
 			previousRowValue = null;
 		} else if (rowValue != null) {
@@ -909,11 +1189,22 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		}
 	}
 
+	/**
+	 * Whether nested results are assembled one parent at a time, emitting and forgetting a parent as soon as the
+	 * parent key changes. This requires rows ordered by the parent id columns and is used when the statement
+	 * declares {@code resultOrdered}, or when {@code streamNestedResultsEnabled} is set and the results are consumed
+	 * one by one through a {@link Cursor} or a custom {@link ResultHandler}.
+	 */
+	private boolean isStreamingNestedResults() {
+		return mappedStatement.isResultOrdered()
+				|| (configuration.isStreamNestedResultsEnabled() && (cursorResults || resultHandler != null));
+	}
+
 	//
 	// GET VALUE FROM ROW FOR NESTED RESULT MAP
 	//
 
-	private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix,
+	private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix,
 			Object partialObject) throws SQLException {
 		final String resultMapId = resultMap.getId();
 		Object rowValue = partialObject;
@@ -940,7 +1231,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 				foundValues = lazyLoader.size() > 0 || foundValues;
 				rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
 			}
-			if (combinedKey != CacheKey.NULL_CACHE_KEY) {
+			if (combinedKey != RowKey.NULL) {
 				nestedResultObjects.put(combinedKey, rowValue);
 			}
 		}
@@ -956,7 +1247,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 	//
 
 	private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject,
-			String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+			String parentPrefix, RowKey parentRowKey, boolean newObject) {
 		boolean foundValues = false;
 		for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
 			final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -976,8 +1267,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 							continue;
 						}
 					}
-					final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-					final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+					final RowKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
+					final RowKey combinedKey = combineKeys(rowKey, parentRowKey);
 					Object rowValue = nestedResultObjects.get(combinedKey);
 					boolean knownValue = rowValue != null;
 					instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
@@ -1041,37 +1332,41 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 	// UNIQUE RESULT KEY
 	//
 
-	private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-		final CacheKey cacheKey = new CacheKey();
-		cacheKey.update(resultMap.getId());
+	private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+		RowKey.Template template = rsw.getRowKeyTemplate(resultMap, columnPrefix);
+		if (template == null) {
+			template = createRowKeyTemplate(resultMap, rsw, columnPrefix);
+			rsw.putRowKeyTemplate(resultMap, columnPrefix, template);
+		}
+		return template.createKey(rsw.getResultSet());
+	}
+
+	private RowKey combineKeys(RowKey rowKey, RowKey parentRowKey) {
+		return rowKey.combine(parentRowKey);
+	}
+
+	private RowKey.Template createRowKeyTemplate(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix)
+			throws SQLException {
+		final List<String> columns = new ArrayList<String>();
+		final List<TypeHandler<?>> typeHandlers = new ArrayList<TypeHandler<?>>();
+		boolean keepEmptyValues = false;
 		List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
 		if (resultMappings.isEmpty()) {
 			if (Map.class.isAssignableFrom(resultMap.getType())) {
-				createRowKeyForMap(rsw, cacheKey);
+				createRowKeyForMap(rsw, columns, typeHandlers);
 			} else {
-				createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
+				createRowKeyForUnmappedProperties(resultMap, rsw, columns, typeHandlers, columnPrefix);
 			}
 		} else {
-			createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
+			createRowKeyForMappedProperties(resultMap, rsw, columns, typeHandlers, resultMappings, columnPrefix);
+			keepEmptyValues = configuration.isReturnInstanceForEmptyRow();
 		}
-		if (cacheKey.getUpdateCount() < 2) {
-			return CacheKey.NULL_CACHE_KEY;
+		final int[] columnIndexes = new int[columns.size()];
+		for (int i = 0; i < columnIndexes.length; i++) {
+			columnIndexes[i] = rsw.getColumnIndex(columns.get(i));
 		}
-		return cacheKey;
-	}
-
-	private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-		if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-			CacheKey combinedKey;
-			try {
-				combinedKey = rowKey.clone();
-			} catch (CloneNotSupportedException e) {
-				throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-			}
-			combinedKey.update(parentRowKey);
-			return combinedKey;
-		}
-		return CacheKey.NULL_CACHE_KEY;
+		return new RowKey.Template(resultMap.getId() + ":" + columnPrefix, columns.toArray(new String[columns.size()]),
+				columnIndexes, typeHandlers.toArray(new TypeHandler<?>[typeHandlers.size()]), keepEmptyValues);
 	}
 
 	private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1082,33 +1377,30 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 		return resultMappings;
 	}
 
-	private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey,
-			List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+	private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<String> columns,
+			List<TypeHandler<?>> typeHandlers, List<ResultMapping> resultMappings, String columnPrefix)
+			throws SQLException {
 		for (ResultMapping resultMapping : resultMappings) {
 			if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
 				// Issue #392
 				final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-				createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey,
+				createRowKeyForMappedProperties(nestedResultMap, rsw, columns, typeHandlers,
 						nestedResultMap.getConstructorResultMappings(),
 						prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
 			} else if (resultMapping.getNestedQueryId() == null) {
 				final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
-				final TypeHandler<?> th = resultMapping.getTypeHandler();
 				List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
 				// Issue #114
 				if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-					final Object value = th.getResult(rsw.getResultSet(), column);
-					if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-						cacheKey.update(column);
-						cacheKey.update(value);
-					}
+					columns.add(column);
+					typeHandlers.add(resultMapping.getTypeHandler());
 				}
 			}
 		}
 	}
 
-	private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey,
-			String columnPrefix) throws SQLException {
+	private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<String> columns,
+			List<TypeHandler<?>> typeHandlers, String columnPrefix) throws SQLException {
 		final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
 		List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
 		for (String column : unmappedColumnNames) {
@@ -1122,23 +1414,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 				}
 			}
 			if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-				String value = rsw.getResultSet().getString(column);
-				if (value != null) {
-					cacheKey.update(column);
-					cacheKey.update(value);
-				}
+				columns.add(column);
+				typeHandlers.add(null);
 			}
 		}
 	}
 
-	private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
-		List<String> columnNames = rsw.getColumnNames();
-		for (String columnName : columnNames) {
-			final String value = rsw.getResultSet().getString(columnName);
-			if (value != null) {
-				cacheKey.update(columnName);
-				cacheKey.update(value);
-			}
+	private void createRowKeyForMap(ResultSetWrapper rsw, List<String> columns, List<TypeHandler<?>> typeHandlers) {
+		for (String columnName : rsw.getColumnNames()) {
+			columns.add(columnName);
+			typeHandlers.add(null);
 		}
 	}
 
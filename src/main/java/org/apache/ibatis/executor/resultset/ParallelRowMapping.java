@@ -0,0 +1,135 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Maps the rows of a {@link RowMappingPlan} on a fork-join pool. The thread that owns the result set reads the
+ * column values of each row into a buffer; full buffers are mapped into objects as one task each, and the mapped
+ * objects are handed back batch by batch in row order.
+ */
+@UsesJava7
+final class ParallelRowMapping {
+
+	// batches mapped or being mapped ahead of the reading thread, per pool thread
+	private static final int BATCHES_IN_FLIGHT_PER_THREAD = 2;
+
+	private final RowMappingPlan plan;
+	private final ObjectFactory objectFactory;
+	private final Configuration configuration;
+	private final int batchSize;
+	private final int maxBatchesInFlight;
+	private final LinkedList<ForkJoinTask<Object[]>> batches = new LinkedList<ForkJoinTask<Object[]>>();
+	private Object[][] rows;
+	private int rowCount;
+
+	ParallelRowMapping(RowMappingPlan plan, ObjectFactory objectFactory, Configuration configuration, int batchSize) {
+		this.plan = plan;
+		this.objectFactory = objectFactory;
+		this.configuration = configuration;
+		this.batchSize = Math.max(1, batchSize);
+		this.maxBatchesInFlight = PoolHolder.POOL.getParallelism() * BATCHES_IN_FLIGHT_PER_THREAD;
+	}
+
+	/**
+	 * Buffers the current row of {@code rs}, submitting the buffer once it is full.
+	 */
+	void addRow(ResultSet rs) throws SQLException {
+		if (rows == null) {
+			rows = new Object[batchSize][];
+		}
+		rows[rowCount++] = plan.readRow(rs);
+		if (rowCount == batchSize) {
+			submitBatch();
+		}
+	}
+
+	/**
+	 * Returns the objects of the oldest batch if it is already mapped, or if too many batches are in flight (waiting
+	 * for it), and an empty list otherwise.
+	 */
+	List<Object> takeMapped() {
+		if (!batches.isEmpty() && (batches.size() > maxBatchesInFlight || batches.getFirst().isDone())) {
+			return Arrays.asList(batches.removeFirst().join());
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Submits the rows still buffered and returns the objects of all remaining batches, in row order.
+	 */
+	List<Object> finish() {
+		submitBatch();
+		final List<Object> results = new ArrayList<Object>();
+		while (!batches.isEmpty()) {
+			results.addAll(Arrays.asList(batches.removeFirst().join()));
+		}
+		return results;
+	}
+
+	private void submitBatch() {
+		if (rowCount == 0) {
+			return;
+		}
+		batches.addLast(PoolHolder.POOL.submit(new MapBatch(rows, rowCount)));
+		rows = null;
+		rowCount = 0;
+	}
+
+	@UsesJava7
+	private final class MapBatch extends RecursiveTask<Object[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[][] batchRows;
+		private final int batchRowCount;
+
+		MapBatch(Object[][] batchRows, int batchRowCount) {
+			this.batchRows = batchRows;
+			this.batchRowCount = batchRowCount;
+		}
+
+		@Override
+		protected Object[] compute() {
+			final Object[] results = new Object[batchRowCount];
+			for (int i = 0; i < batchRowCount; i++) {
+				results[i] = plan.mapValues(batchRows[i], objectFactory, configuration);
+			}
+			return results;
+		}
+
+	}
+
+	@UsesJava7
+	private static final class PoolHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+}
@@ -0,0 +1,58 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Maps rows of a result type that has its own type handler ({@code resultType="int"}, {@code "string"}...) by
+ * reading the single relevant column with a handler resolved once per column layout.
+ */
+final class PrimitiveRowMapper implements RowMapper {
+
+	private final String column;
+	private final int columnIndex;
+	private final TypeHandler<?> typeHandler;
+
+	private PrimitiveRowMapper(String column, int columnIndex, TypeHandler<?> typeHandler) {
+		this.column = column;
+		this.columnIndex = ResultSetWrapper.isBuiltInTypeHandler(typeHandler) ? columnIndex : -1;
+		this.typeHandler = typeHandler;
+	}
+
+	/**
+	 * Resolves the column like {@code DefaultResultSetHandler.createPrimitiveResultObject}: the first result
+	 * mapping's column, otherwise the first column of the result set.
+	 */
+	static RowMapper compile(ResultSetWrapper rsw, ResultMap resultMap) {
+		final String column = resultMap.getResultMappings().isEmpty() ? rsw.getColumnNames().get(0)
+				: resultMap.getResultMappings().get(0).getColumn();
+		final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultMap.getType(), column);
+		return new PrimitiveRowMapper(column, rsw.getColumnIndex(column), typeHandler);
+	}
+
+	@Override
+	public Object mapRow(ResultSet rs, ObjectFactory objectFactory, Configuration configuration) throws SQLException {
+		return columnIndex > 0 ? typeHandler.getResult(rs, columnIndex) : typeHandler.getResult(rs, column);
+	}
+
+}
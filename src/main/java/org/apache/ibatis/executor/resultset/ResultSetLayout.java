@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The columns of a result set and everything {@link ResultSetWrapper} derives from them: column positions, the
+ * type handlers chosen per column and property type, the mapped and unmapped columns and the compiled constructors
+ * per result map. A layout
+ * is immutable apart from these caches, which are safe for concurrent use, so one layout can serve every execution
+ * of a statement that returns the same columns (see {@link ResultSetLayoutCache}).
+ */
+final class ResultSetLayout {
+
+  private final String[] columnLabels;
+  private final int[] columnTypes;
+  private final boolean useColumnLabel;
+  private final int fingerprint;
+  private final List<String> columnNames;
+  private final List<String> classNames;
+  private final List<JdbcType> jdbcTypes;
+  // upper-cased label -> 1-based index, first match wins like the driver
+  private final Map<String, Integer> upperCaseIndexes;
+  private final Map<String, Integer> columnIndexes = new ConcurrentHashMap<String, Integer>();
+  final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<String, Map<Class<?>, TypeHandler<?>>>();
+  final Map<String, List<String>> mappedColumnNamesMap = new ConcurrentHashMap<String, List<String>>();
+  final Map<String, List<String>> unMappedColumnNamesMap = new ConcurrentHashMap<String, List<String>>();
+  final Map<String, ConstructorMappingPlan> constructorMappingPlanMap = new ConcurrentHashMap<String, ConstructorMappingPlan>();
+  final Map<String, ConstructorMappingPlan> canonicalConstructorPlanMap = new ConcurrentHashMap<String, ConstructorMappingPlan>();
+  private volatile String columnLayoutKey;
+
+  ResultSetLayout(String[] columnLabels, int[] columnTypes, String[] classNames, boolean useColumnLabel) {
+    this.columnLabels = columnLabels;
+    this.columnTypes = columnTypes;
+    this.useColumnLabel = useColumnLabel;
+    this.fingerprint = fingerprint(columnLabels, columnTypes);
+    this.columnNames = Collections.unmodifiableList(Arrays.asList(columnLabels.clone()));
+    this.classNames = Collections.unmodifiableList(Arrays.asList(classNames));
+    final JdbcType[] types = new JdbcType[columnTypes.length];
+    final Map<String, Integer> indexes = new HashMap<String, Integer>();
+    for (int i = 0; i < columnTypes.length; i++) {
+      types[i] = JdbcType.forCode(columnTypes[i]);
+      final String upperCaseLabel = columnLabels[i].toUpperCase(Locale.ENGLISH);
+      if (!indexes.containsKey(upperCaseLabel)) {
+        indexes.put(upperCaseLabel, i + 1);
+      }
+    }
+    this.jdbcTypes = Collections.unmodifiableList(Arrays.asList(types));
+    this.upperCaseIndexes = indexes;
+  }
+
+  static int fingerprint(String[] columnLabels, int[] columnTypes) {
+    return 31 * Arrays.hashCode(columnLabels) + Arrays.hashCode(columnTypes);
+  }
+
+  /**
+   * Whether this layout describes a result set with these columns, read with this {@code useColumnLabel} setting.
+   */
+  boolean matches(int fingerprint, String[] columnLabels, int[] columnTypes, boolean useColumnLabel) {
+    return this.fingerprint == fingerprint && this.useColumnLabel == useColumnLabel
+        && Arrays.equals(this.columnTypes, columnTypes) && Arrays.equals(this.columnLabels, columnLabels);
+  }
+
+  List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  List<String> getClassNames() {
+    return classNames;
+  }
+
+  List<JdbcType> getJdbcTypes() {
+    return jdbcTypes;
+  }
+
+  /**
+   * @return the 1-based index of {@code columnName}, compared case-insensitively, or {@code -1}
+   */
+  int indexOf(String columnName) {
+    Integer index = columnIndexes.get(columnName);
+    if (index == null) {
+      index = upperCaseIndexes.get(columnName.toUpperCase(Locale.ENGLISH));
+      if (index == null) {
+        index = -1;
+      }
+      columnIndexes.put(columnName, index);
+    }
+    return index;
+  }
+
+  String getColumnLayoutKey() {
+    String key = columnLayoutKey;
+    if (key == null) {
+      final StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < columnLabels.length; i++) {
+        builder.append(columnLabels[i]).append(':').append(jdbcTypes.get(i)).append(':')
+            .append(classNames.get(i)).append(',');
+      }
+      key = builder.toString();
+      columnLayoutKey = key;
+    }
+    return key;
+  }
+
+}
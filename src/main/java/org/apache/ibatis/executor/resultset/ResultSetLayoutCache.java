@@ -0,0 +1,56 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+/**
+ * The result set layouts a statement has returned, so that {@link ResultSetWrapper} can skip the column metadata
+ * and the column/type handler resolution on later executions. A layout is found again by the column labels and
+ * JDBC types of the new result set; the most recent {@value #MAX_LAYOUTS} layouts are kept.
+ */
+public final class ResultSetLayoutCache {
+
+  static final int MAX_LAYOUTS = 8;
+
+  private volatile ResultSetLayout[] layouts = new ResultSetLayout[0];
+
+  ResultSetLayout get(String[] columnLabels, int[] columnTypes, boolean useColumnLabel) {
+    final int fingerprint = ResultSetLayout.fingerprint(columnLabels, columnTypes);
+    for (ResultSetLayout layout : layouts) {
+      if (layout.matches(fingerprint, columnLabels, columnTypes, useColumnLabel)) {
+        return layout;
+      }
+    }
+    return null;
+  }
+
+  synchronized void put(ResultSetLayout layout) {
+    final ResultSetLayout[] current = layouts;
+    final int kept = Math.min(current.length, MAX_LAYOUTS - 1);
+    final ResultSetLayout[] updated = new ResultSetLayout[kept + 1];
+    updated[0] = layout;
+    System.arraycopy(current, 0, updated, 1, kept);
+    layouts = updated;
+  }
+
+  public int size() {
+    return layouts.length;
+  }
+
+  public synchronized void clear() {
+    layouts = new ResultSetLayout[0];
+  }
+
+}
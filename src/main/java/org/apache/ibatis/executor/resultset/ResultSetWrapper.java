@@ -19,13 +19,13 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.Configuration;
@@ -42,24 +42,58 @@ public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
-  private final List<String> columnNames = new ArrayList<String>();
-  private final List<String> classNames = new ArrayList<String>();
-  private final List<JdbcType> jdbcTypes = new ArrayList<JdbcType>();
-  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<String, Map<Class<?>, TypeHandler<?>>>();
-  private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<String, List<String>>();
-  private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<String, List<String>>();
+  private final ResultSetLayout layout;
+  private final List<String> columnNames;
+  private final List<String> classNames;
+  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap;
+  private final Map<String, List<String>> mappedColumnNamesMap;
+  private final Map<String, List<String>> unMappedColumnNamesMap;
+  private final Map<String, RowMapper> rowMapperMap = new HashMap<String, RowMapper>();
+  private final Map<String, RowKey.Template> rowKeyTemplateMap = new HashMap<String, RowKey.Template>();
+  private final boolean useColumnLabel;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, null);
+  }
+
+  /**
+   * @param layoutCache
+   *          the layouts earlier executions of the statement returned, or {@code null}. When the columns of
+   *          {@code rs} match one of them, its column metadata and resolved column names and type handlers are
+   *          reused instead of being looked up again.
+   */
+  public ResultSetWrapper(ResultSet rs, Configuration configuration, ResultSetLayoutCache layoutCache)
+      throws SQLException {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
+    this.useColumnLabel = configuration.isUseColumnLabel();
     final ResultSetMetaData metaData = rs.getMetaData();
     final int columnCount = metaData.getColumnCount();
+    final String[] columnLabels = new String[columnCount];
+    final int[] columnTypes = new int[columnCount];
     for (int i = 1; i <= columnCount; i++) {
-      columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
-      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
-      classNames.add(metaData.getColumnClassName(i));
+      columnLabels[i - 1] = useColumnLabel ? metaData.getColumnLabel(i) : metaData.getColumnName(i);
+      columnTypes[i - 1] = metaData.getColumnType(i);
     }
+    ResultSetLayout cachedLayout = layoutCache == null ? null
+        : layoutCache.get(columnLabels, columnTypes, useColumnLabel);
+    if (cachedLayout == null) {
+      final String[] columnClassNames = new String[columnCount];
+      for (int i = 1; i <= columnCount; i++) {
+        columnClassNames[i - 1] = metaData.getColumnClassName(i);
+      }
+      cachedLayout = new ResultSetLayout(columnLabels, columnTypes, columnClassNames, useColumnLabel);
+      if (layoutCache != null) {
+        layoutCache.put(cachedLayout);
+      }
+    }
+    this.layout = cachedLayout;
+    this.columnNames = layout.getColumnNames();
+    this.classNames = layout.getClassNames();
+    this.typeHandlerMap = layout.typeHandlerMap;
+    this.mappedColumnNamesMap = layout.mappedColumnNamesMap;
+    this.unMappedColumnNamesMap = layout.unMappedColumnNamesMap;
   }
 
   public ResultSet getResultSet() {
@@ -71,16 +105,53 @@ public class ResultSetWrapper {
   }
 
   public List<String> getClassNames() {
-    return Collections.unmodifiableList(classNames);
+    return classNames;
   }
 
-  public JdbcType getJdbcType(String columnName) {
-    for (int i = 0 ; i < columnNames.size(); i++) {
-      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-        return jdbcTypes.get(i);
+  public List<JdbcType> getJdbcTypes() {
+    return layout.getJdbcTypes();
+  }
+
+  /**
+   * Resolves a column label to its 1-based index the way the driver would: case-insensitively, first match wins.
+   * The result is cached per label in the column layout, so the mapping hot path pays a single hash lookup per
+   * value.
+   *
+   * @return the column index, or {@code -1} when the label is unknown or columns are not read by label
+   *         ({@code useColumnLabel=false}), in which case the value must be read by name
+   */
+  public int getColumnIndex(String columnName) {
+    if (!useColumnLabel || columnName == null) {
+      return -1;
+    }
+    return layout.indexOf(columnName);
+  }
+
+  /**
+   * Reads {@code columnName} of the current row with {@code typeHandler}, by index when the column is known and the
+   * handler is one of the built-in ones. Custom handlers are always called with the column name, which is the only
+   * variant some of them implement.
+   */
+  public Object getResult(TypeHandler<?> typeHandler, String columnName) throws SQLException {
+    if (isBuiltInTypeHandler(typeHandler)) {
+      final int columnIndex = getColumnIndex(columnName);
+      if (columnIndex > 0) {
+        return typeHandler.getResult(resultSet, columnIndex);
       }
     }
-    return null;
+    return typeHandler.getResult(resultSet, columnName);
+  }
+
+  static boolean isBuiltInTypeHandler(TypeHandler<?> typeHandler) {
+    return typeHandler.getClass().getName().startsWith("org.apache.ibatis.type.");
+  }
+
+  public JdbcType getJdbcType(String columnName) {
+    if (columnName == null) {
+      return null;
+    }
+    final int index = layout.indexOf(columnName);
+    return index > 0 ? layout.getJdbcTypes().get(index - 1) : null;
   }
 
   /**
@@ -96,7 +167,7 @@ public class ResultSetWrapper {
     TypeHandler<?> handler = null;
     Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
     if (columnHandlers == null) {
-      columnHandlers = new HashMap<Class<?>, TypeHandler<?>>();
+      columnHandlers = new ConcurrentHashMap<Class<?>, TypeHandler<?>>();
       typeHandlerMap.put(columnName, columnHandlers);
     } else {
       handler = columnHandlers.get(propertyType);
@@ -172,6 +243,46 @@ public class ResultSetWrapper {
     return unMappedColumnNames;
   }
 
+  /**
+   * Returns a key that identifies the column labels, JDBC types and Java class names of this result set.
+   * Two result sets with the same key map identically onto any given result map.
+   */
+  public String getColumnLayoutKey() {
+    return layout.getColumnLayoutKey();
+  }
+
+  RowMapper getRowMapper(ResultMap resultMap) {
+    return rowMapperMap.get(resultMap.getId());
+  }
+
+  void putRowMapper(ResultMap resultMap, RowMapper rowMapper) {
+    rowMapperMap.put(resultMap.getId(), rowMapper);
+  }
+
+  RowKey.Template getRowKeyTemplate(ResultMap resultMap, String columnPrefix) {
+    return rowKeyTemplateMap.get(getMapKey(resultMap, columnPrefix));
+  }
+
+  void putRowKeyTemplate(ResultMap resultMap, String columnPrefix, RowKey.Template template) {
+    rowKeyTemplateMap.put(getMapKey(resultMap, columnPrefix), template);
+  }
+
+  ConstructorMappingPlan getConstructorMappingPlan(ResultMap resultMap, String columnPrefix) {
+    return layout.constructorMappingPlanMap.get(getMapKey(resultMap, columnPrefix));
+  }
+
+  void putConstructorMappingPlan(ResultMap resultMap, String columnPrefix, ConstructorMappingPlan plan) {
+    layout.constructorMappingPlanMap.put(getMapKey(resultMap, columnPrefix), plan);
+  }
+
+  ConstructorMappingPlan getCanonicalConstructorPlan(ResultMap resultMap, String columnPrefix) {
+    return layout.canonicalConstructorPlanMap.get(getMapKey(resultMap, columnPrefix));
+  }
+
+  void putCanonicalConstructorPlan(ResultMap resultMap, String columnPrefix, ConstructorMappingPlan plan) {
+    layout.canonicalConstructorPlanMap.put(getMapKey(resultMap, columnPrefix), plan);
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
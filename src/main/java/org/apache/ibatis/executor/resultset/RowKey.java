@@ -0,0 +1,231 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+import org.apache.ibatis.type.ByteTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.ShortTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Identifies the object a row of a nested result map belongs to. Replaces the per-row {@code CacheKey} of the
+ * nested mapping path: the columns a key is made of are resolved once per column layout into a {@link Template},
+ * single-column keys hold their value without an array (integral ids without boxing), and a combined key just
+ * points to its parent key instead of copying it.
+ */
+final class RowKey {
+
+	static final RowKey NULL = new RowKey(null, null, 0L, null, 0);
+
+	// value of a single integral column that was SQL NULL
+	private static final Object NULL_VALUE = new Object();
+
+	private final Template template;
+	private final Object value;
+	private final long longValue;
+	private final RowKey parent;
+	private final int hashCode;
+
+	private RowKey(Template template, Object value, long longValue, RowKey parent, int hashCode) {
+		this.template = template;
+		this.value = value;
+		this.longValue = longValue;
+		this.parent = parent;
+		this.hashCode = hashCode;
+	}
+
+	/**
+	 * Returns the key of this row within the row identified by {@code parentKey}, or {@link #NULL} when either key
+	 * is {@link #NULL}.
+	 */
+	RowKey combine(RowKey parentKey) {
+		if (this == NULL || parentKey == NULL) {
+			return NULL;
+		}
+		return new RowKey(template, value, longValue, parentKey, 31 * hashCode + parentKey.hashCode);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof RowKey)) {
+			return false;
+		}
+		final RowKey other = (RowKey) object;
+		if (hashCode != other.hashCode || longValue != other.longValue || template == null || other.template == null
+				|| !template.id.equals(other.template.id)) {
+			return false;
+		}
+		if (value instanceof Object[] && other.value instanceof Object[]) {
+			final Object[] values = (Object[]) value;
+			final Object[] otherValues = (Object[]) other.value;
+			if (values.length != otherValues.length) {
+				return false;
+			}
+			for (int i = 0; i < values.length; i++) {
+				if (!ArrayUtil.equals(values[i], otherValues[i])) {
+					return false;
+				}
+			}
+		} else if (!ArrayUtil.equals(value, other.value)) {
+			return false;
+		}
+		return parent == null ? other.parent == null : parent.equals(other.parent);
+	}
+
+	@Override
+	public String toString() {
+		if (this == NULL) {
+			return "RowKey[NULL]";
+		}
+		final StringBuilder builder = new StringBuilder("RowKey[").append(template.id).append(':');
+		if (value == null) {
+			builder.append(longValue);
+		} else {
+			builder.append(value == NULL_VALUE ? "null" : ArrayUtil.toString(value));
+		}
+		if (parent != null) {
+			builder.append(" in ").append(parent);
+		}
+		return builder.append(']').toString();
+	}
+
+	/**
+	 * The columns that identify a row of one result map (with one column prefix) in one result set layout.
+	 */
+	static final class Template {
+
+		private static final int KIND_OBJECT = 0;
+		private static final int KIND_LONG = 1;
+		private static final int KIND_STRING = 2;
+
+		private final String id;
+		private final int idHash;
+		private final String[] columns;
+		private final int[] columnIndexes;
+		private final TypeHandler<?>[] typeHandlers;
+		private final int[] kinds;
+		private final boolean keepEmptyValues;
+
+		/**
+		 * @param id
+		 *          the result map id and column prefix the key belongs to
+		 * @param columns
+		 *          the identifying columns
+		 * @param columnIndexes
+		 *          the index of each column, or {@code -1} to read it by name
+		 * @param typeHandlers
+		 *          the handler of each column, or {@code null} to read the column as a string
+		 * @param keepEmptyValues
+		 *          whether a row whose columns are all null still gets a key ({@code returnInstanceForEmptyRow})
+		 */
+		Template(String id, String[] columns, int[] columnIndexes, TypeHandler<?>[] typeHandlers,
+				boolean keepEmptyValues) {
+			this.id = id;
+			this.idHash = id.hashCode();
+			this.columns = columns;
+			this.columnIndexes = columnIndexes;
+			this.typeHandlers = typeHandlers;
+			this.kinds = new int[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				kinds[i] = kindOf(typeHandlers[i], columnIndexes[i]);
+			}
+			this.keepEmptyValues = keepEmptyValues;
+		}
+
+		private static int kindOf(TypeHandler<?> typeHandler, int columnIndex) {
+			if (typeHandler == null) {
+				return KIND_STRING;
+			}
+			if (columnIndex > 0) {
+				final Class<?> handlerType = typeHandler.getClass();
+				if (handlerType == IntegerTypeHandler.class || handlerType == LongTypeHandler.class
+						|| handlerType == ShortTypeHandler.class || handlerType == ByteTypeHandler.class) {
+					return KIND_LONG;
+				}
+			}
+			return KIND_OBJECT;
+		}
+
+		RowKey createKey(ResultSet rs) throws SQLException {
+			if (columns.length == 1) {
+				return createSingleColumnKey(rs);
+			}
+			final Object[] values = new Object[columns.length];
+			boolean found = false;
+			for (int i = 0; i < columns.length; i++) {
+				final Object value;
+				if (kinds[i] == KIND_LONG) {
+					final long longValue = rs.getLong(columnIndexes[i]);
+					value = rs.wasNull() ? null : Long.valueOf(longValue);
+				} else {
+					value = readObject(rs, i);
+				}
+				values[i] = value;
+				found = found || value != null;
+			}
+			if (!found && !(keepEmptyValues && columns.length > 0)) {
+				return NULL;
+			}
+			int hash = idHash;
+			for (Object value : values) {
+				hash = 31 * hash + (value == null ? 0 : ArrayUtil.hashCode(value));
+			}
+			return new RowKey(this, values, 0L, null, hash);
+		}
+
+		private RowKey createSingleColumnKey(ResultSet rs) throws SQLException {
+			if (kinds[0] == KIND_LONG) {
+				final long longValue = rs.getLong(columnIndexes[0]);
+				if (!rs.wasNull()) {
+					return new RowKey(this, null, longValue, null, 31 * idHash + (int) (longValue ^ (longValue >>> 32)));
+				}
+				return keepEmptyValues ? new RowKey(this, NULL_VALUE, 0L, null, 31 * idHash) : NULL;
+			}
+			final Object value = readObject(rs, 0);
+			if (value != null) {
+				return new RowKey(this, value, 0L, null, 31 * idHash + ArrayUtil.hashCode(value));
+			}
+			return keepEmptyValues ? new RowKey(this, NULL_VALUE, 0L, null, 31 * idHash) : NULL;
+		}
+
+		private Object readObject(ResultSet rs, int i) throws SQLException {
+			final int columnIndex = columnIndexes[i];
+			if (kinds[i] == KIND_STRING) {
+				return columnIndex > 0 ? rs.getString(columnIndex) : rs.getString(columns[i]);
+			}
+			final TypeHandler<?> typeHandler = typeHandlers[i];
+			if (columnIndex > 0 && ResultSetWrapper.isBuiltInTypeHandler(typeHandler)) {
+				return typeHandler.getResult(rs, columnIndex);
+			}
+			return typeHandler.getResult(rs, columns[i]);
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Maps the current row of a result set onto a new result object for one result map and column layout.
+ *
+ * @see RowMappingPlan
+ * @see RowMapperFactory
+ */
+public interface RowMapper {
+
+	/**
+	 * @return the mapped object, or {@code null} when the row has no values and
+	 *         {@code returnInstanceForEmptyRow} is not set
+	 */
+	Object mapRow(ResultSet rs, ObjectFactory objectFactory, Configuration configuration) throws SQLException;
+
+}
@@ -0,0 +1,34 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Properties;
+
+/**
+ * Turns a compiled {@link RowMappingPlan} into the {@link RowMapper} that actually maps rows,
+ * for example a generated class that reads columns and calls setters without reflection.
+ * Without a factory the plan maps rows itself.
+ */
+public interface RowMapperFactory {
+
+	void setProperties(Properties properties);
+
+	/**
+	 * @return a mapper equivalent to {@code plan}, or the plan itself when it cannot do better
+	 */
+	RowMapper createRowMapper(RowMappingPlan plan);
+
+}
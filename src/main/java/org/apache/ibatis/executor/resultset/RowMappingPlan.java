@@ -0,0 +1,291 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * A flat mapping plan of one column layout onto a simple {@link ResultMap}.
+ * <p>
+ * The plan is compiled once per result map and column layout. It resolves the column index, type handler and
+ * setter of every mapped property up front, so mapping a row is one loop over an array, without
+ * {@code MetaObject}, {@code PropertyTokenizer} or column name lookups. Only result maps that the reflective
+ * path would map onto a plain bean through its default constructor are compiled. Nested result maps, nested
+ * selects, constructor mappings, discriminators, map or collection results and nested properties keep using
+ * the reflective code in {@link DefaultResultSetHandler}.
+ */
+public final class RowMappingPlan implements RowMapper {
+
+	static final RowMappingPlan NOT_APPLICABLE = new RowMappingPlan(null, new Step[0]);
+
+	private final Class<?> type;
+	private final Step[] steps;
+
+	private RowMappingPlan(Class<?> type, Step[] steps) {
+		this.type = type;
+		this.steps = steps;
+	}
+
+	public boolean isApplicable() {
+		return type != null;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return the columns the plan reads per row, in the order they are applied
+	 */
+	public List<Step> getSteps() {
+		return Collections.unmodifiableList(Arrays.asList(steps));
+	}
+
+	/**
+	 * Maps the current row of {@code rs} the same way the reflective path maps it: auto-mapped columns first,
+	 * then the explicit property mappings, honouring {@code callSettersOnNulls} and
+	 * {@code returnInstanceForEmptyRow}.
+	 */
+	@Override
+	public Object mapRow(ResultSet rs, ObjectFactory objectFactory, Configuration configuration) throws SQLException {
+		final Object rowValue = objectFactory.create(type);
+		final boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+		boolean foundValues = false;
+		for (Step step : steps) {
+			final Object value = step.getResult(rs);
+			if (value != null) {
+				foundValues = true;
+			}
+			if (value != null || (callSettersOnNulls && !step.primitive)) {
+				// gcode issue #377, call setter on nulls (value is not 'found')
+				step.setValue(rowValue, value);
+			}
+		}
+		return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+	}
+
+	/**
+	 * Reads the columns of the current row of {@code rs} without mapping them, for {@link #mapValues}. The two
+	 * halves of {@link #mapRow} let the row be read on the thread that owns the result set and mapped on another.
+	 */
+	Object[] readRow(ResultSet rs) throws SQLException {
+		final Object[] values = new Object[steps.length];
+		for (int i = 0; i < steps.length; i++) {
+			values[i] = steps[i].getResult(rs);
+		}
+		return values;
+	}
+
+	/**
+	 * Maps the column values returned by {@link #readRow} exactly like {@link #mapRow} maps the row itself.
+	 */
+	Object mapValues(Object[] values, ObjectFactory objectFactory, Configuration configuration) {
+		final Object rowValue = objectFactory.create(type);
+		final boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+		boolean foundValues = false;
+		for (int i = 0; i < steps.length; i++) {
+			final Object value = values[i];
+			if (value != null) {
+				foundValues = true;
+			}
+			if (value != null || (callSettersOnNulls && !steps[i].primitive)) {
+				steps[i].setValue(rowValue, value);
+			}
+		}
+		return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+	}
+
+	/**
+	 * Compiles a plan for {@code resultMap} against the columns of {@code rsw}, or returns {@link #NOT_APPLICABLE}
+	 * when the result map needs the reflective path.
+	 */
+	static RowMappingPlan compile(ResultSetWrapper rsw, ResultMap resultMap, boolean applyAutomaticMappings,
+			Configuration configuration) throws SQLException {
+		final Class<?> type = resultMap.getType();
+		if (!isSimpleBeanResultMap(resultMap, configuration) || hasTypeHandlerForResultObject(rsw, type, configuration)) {
+			return NOT_APPLICABLE;
+		}
+		final MetaClass metaType = MetaClass.forClass(type, configuration.getReflectorFactory());
+		if (!metaType.hasDefaultConstructor()) {
+			return NOT_APPLICABLE;
+		}
+		final List<Step> steps = new ArrayList<Step>();
+		if (applyAutomaticMappings && !addAutomaticMappingSteps(rsw, resultMap, metaType, configuration, steps)) {
+			return NOT_APPLICABLE;
+		}
+		final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+		for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+			final String column = propertyMapping.getColumn();
+			final String property = propertyMapping.getProperty();
+			if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null
+					|| propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null) {
+				return NOT_APPLICABLE;
+			}
+			// issue #541 make property optional
+			if (column == null || property == null
+					|| !mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+				continue;
+			}
+			if (!isSimpleProperty(property) || !metaType.hasSetter(property)) {
+				return NOT_APPLICABLE;
+			}
+			steps.add(new Step(column, rsw.getColumnIndex(column), property, propertyMapping.getTypeHandler(),
+					metaType.getSetInvoker(property), metaType.getSetterType(property)));
+		}
+		return new RowMappingPlan(type, steps.toArray(new Step[steps.size()]));
+	}
+
+	private static boolean isSimpleBeanResultMap(ResultMap resultMap, Configuration configuration) {
+		final Class<?> type = resultMap.getType();
+		return resultMap.getDiscriminator() == null && !resultMap.hasNestedResultMaps()
+				&& !resultMap.hasNestedQueries() && resultMap.getConstructorResultMappings().isEmpty()
+				&& !type.isInterface() && !type.isArray() && !Map.class.isAssignableFrom(type)
+				&& !Collection.class.isAssignableFrom(type)
+				&& configuration.getObjectWrapperFactory().getClass() == DefaultObjectWrapperFactory.class;
+	}
+
+	private static boolean hasTypeHandlerForResultObject(ResultSetWrapper rsw, Class<?> resultType,
+			Configuration configuration) {
+		final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+		if (rsw.getColumnNames().size() == 1) {
+			return typeHandlerRegistry.hasTypeHandler(resultType, rsw.getJdbcType(rsw.getColumnNames().get(0)));
+		}
+		return typeHandlerRegistry.hasTypeHandler(resultType);
+	}
+
+	private static boolean addAutomaticMappingSteps(ResultSetWrapper rsw, ResultMap resultMap, MetaClass metaType,
+			Configuration configuration, List<Step> steps) throws SQLException {
+		final boolean reportUnknownColumns = configuration
+				.getAutoMappingUnknownColumnBehavior() != AutoMappingUnknownColumnBehavior.NONE;
+		final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+		for (String columnName : rsw.getUnmappedColumnNames(resultMap, null)) {
+			final String property = metaType.findProperty(columnName, configuration.isMapUnderscoreToCamelCase());
+			if (property != null && metaType.hasSetter(property)) {
+				if (resultMap.getMappedProperties().contains(property)) {
+					continue;
+				}
+				if (!isSimpleProperty(property)) {
+					return false;
+				}
+				final Class<?> propertyType = metaType.getSetterType(property);
+				if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
+					steps.add(new Step(columnName, rsw.getColumnIndex(columnName), property,
+							rsw.getTypeHandler(propertyType, columnName), metaType.getSetInvoker(property), propertyType));
+				} else if (reportUnknownColumns) {
+					// leave the warning or failure to the reflective path, on every query
+					return false;
+				}
+			} else if (reportUnknownColumns) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSimpleProperty(String property) {
+		return property.indexOf('.') < 0 && property.indexOf('[') < 0;
+	}
+
+	/**
+	 * One column of a {@link RowMappingPlan}: where to read it, how to convert it and which property receives it.
+	 */
+	public static final class Step {
+		private final String column;
+		private final int columnIndex;
+		private final String property;
+		private final TypeHandler<?> typeHandler;
+		private final Invoker setter;
+		private final Class<?> propertyType;
+		private final boolean primitive;
+
+		Step(String column, int columnIndex, String property, TypeHandler<?> typeHandler, Invoker setter,
+				Class<?> propertyType) {
+			this.column = column;
+			// custom handlers are only guaranteed to be exercised by column name
+			this.columnIndex = ResultSetWrapper.isBuiltInTypeHandler(typeHandler) ? columnIndex : -1;
+			this.property = property;
+			this.typeHandler = typeHandler;
+			this.setter = setter;
+			this.propertyType = propertyType;
+			this.primitive = propertyType.isPrimitive();
+		}
+
+		public String getColumn() {
+			return column;
+		}
+
+		/**
+		 * @return the 1-based column index, or {@code -1} when the column must be read by name
+		 */
+		public int getColumnIndex() {
+			return columnIndex;
+		}
+
+		public String getProperty() {
+			return property;
+		}
+
+		public TypeHandler<?> getTypeHandler() {
+			return typeHandler;
+		}
+
+		public Class<?> getPropertyType() {
+			return propertyType;
+		}
+
+		public Object getResult(ResultSet rs) throws SQLException {
+			if (columnIndex > 0) {
+				return typeHandler.getResult(rs, columnIndex);
+			}
+			return typeHandler.getResult(rs, column);
+		}
+
+		public void setValue(Object target, Object value) {
+			try {
+				try {
+					setter.invoke(target, new Object[] { value });
+				} catch (Throwable t) {
+					throw ExceptionUtil.unwrapThrowable(t);
+				}
+			} catch (Throwable t) {
+				throw new ReflectionException("Could not set property '" + property + "' of '" + target.getClass()
+						+ "' with value '" + value + "' Cause: " + t.toString(), t);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares the {@link RowMapper}s built from compiled {@link RowMappingPlan}s across queries, keyed by result map
+ * id and column layout.
+ * <p>
+ * Statements that select a varying set of columns produce one plan per layout, so the cache is bounded and
+ * simply starts over once it is full.
+ */
+public class RowMappingPlanCache {
+
+	private static final int MAX_PLANS = 1024;
+
+	private final ConcurrentMap<String, RowMapper> plans = new ConcurrentHashMap<String, RowMapper>();
+
+	public RowMapper get(String key) {
+		return plans.get(key);
+	}
+
+	public void put(String key, RowMapper rowMapper) {
+		if (plans.size() >= MAX_PLANS) {
+			plans.clear();
+		}
+		plans.put(key, rowMapper);
+	}
+
+	public int size() {
+		return plans.size();
+	}
+
+	public void clear() {
+		plans.clear();
+	}
+
+}
@@ -0,0 +1,322 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset.javassist;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.executor.resultset.RowMapper;
+import org.apache.ibatis.executor.resultset.RowMapperFactory;
+import org.apache.ibatis.executor.resultset.RowMappingPlan;
+import org.apache.ibatis.executor.resultset.RowMappingPlan.Step;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.type.BooleanTypeHandler;
+import org.apache.ibatis.type.ByteTypeHandler;
+import org.apache.ibatis.type.DoubleTypeHandler;
+import org.apache.ibatis.type.FloatTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.ShortTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Generates a {@link RowMapper} class per compiled {@link RowMappingPlan}.
+ * <p>
+ * The generated class instantiates the result type and calls its public setters directly. Columns handled by the
+ * built-in numeric, boolean and string type handlers are read by index with the primitive {@code ResultSet}
+ * getters, so primitive properties are set without boxing. Other columns still go through their type handler.
+ * Plans the generator cannot express (non-public types or setters, primitive properties with a custom type
+ * handler...) are returned unchanged and keep mapping reflectively.
+ */
+public class JavassistRowMapperFactory implements RowMapperFactory {
+
+  private static final Log log = LogFactory.getLog(JavassistRowMapperFactory.class);
+  private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+  private static final Map<Class<?>, Map<String, WeakReference<Class<?>>>> GENERATED_CLASSES = new WeakHashMap<Class<?>, Map<String, WeakReference<Class<?>>>>();
+  private static final Map<Class<?>, PrimitiveAccess> PRIMITIVE_ACCESS = new HashMap<Class<?>, PrimitiveAccess>();
+
+  static {
+    registerPrimitiveAccess(int.class, Integer.class, IntegerTypeHandler.class, "getInt");
+    registerPrimitiveAccess(long.class, Long.class, LongTypeHandler.class, "getLong");
+    registerPrimitiveAccess(short.class, Short.class, ShortTypeHandler.class, "getShort");
+    registerPrimitiveAccess(byte.class, Byte.class, ByteTypeHandler.class, "getByte");
+    registerPrimitiveAccess(double.class, Double.class, DoubleTypeHandler.class, "getDouble");
+    registerPrimitiveAccess(float.class, Float.class, FloatTypeHandler.class, "getFloat");
+    registerPrimitiveAccess(boolean.class, Boolean.class, BooleanTypeHandler.class, "getBoolean");
+  }
+
+  public JavassistRowMapperFactory() {
+    try {
+      Resources.classForName("javassist.ClassPool");
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot generate row mappers because Javassist is not available. Add Javassist to your classpath.", e);
+    }
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // Not Implemented
+  }
+
+  @Override
+  public RowMapper createRowMapper(RowMappingPlan plan) {
+    final Class<?> type = plan.getType();
+    try {
+      final ClassLoader loader = chooseClassLoader(type);
+      final String body = loader == null ? null : generateMapRowBody(plan);
+      if (body == null) {
+        if (log.isDebugEnabled()) {
+          log.debug("Mapping " + type.getName() + " reflectively, its row mapping plan cannot be generated.");
+        }
+        return plan;
+      }
+      return instantiate(plan, loader, body);
+    } catch (Exception e) {
+      if (log.isDebugEnabled()) {
+        log.debug("Mapping " + type.getName() + " reflectively, generating its row mapper failed. Cause: " + e);
+      }
+      return plan;
+    }
+  }
+
+  private RowMapper instantiate(RowMappingPlan plan, ClassLoader loader, String body) throws Exception {
+    final Class<?> type = plan.getType();
+    final Class<?> mapperClass = getMapperClass(type, loader, body);
+    final List<Step> steps = plan.getSteps();
+    final TypeHandler<?>[] handlers = new TypeHandler<?>[steps.size()];
+    final String[] columns = new String[steps.size()];
+    for (int i = 0; i < steps.size(); i++) {
+      handlers[i] = steps.get(i).getTypeHandler();
+      columns[i] = steps.get(i).getColumn();
+    }
+    final Constructor<?> constructor = mapperClass.getConstructor(Class.class, TypeHandler[].class, String[].class);
+    return (RowMapper) constructor.newInstance(type, handlers, columns);
+  }
+
+  /**
+   * Returns the class generated earlier for the same result type and body, or generates it. Type handlers and
+   * column names are constructor arguments, so plans evicted from the plan cache or rebuilt by another
+   * configuration reuse the class instead of defining a new one in the entity's class loader.
+   */
+  private static Class<?> getMapperClass(Class<?> type, ClassLoader loader, String body) throws Exception {
+    synchronized (GENERATED_CLASSES) {
+      Map<String, WeakReference<Class<?>>> classes = GENERATED_CLASSES.get(type);
+      if (classes == null) {
+        classes = new HashMap<String, WeakReference<Class<?>>>();
+        GENERATED_CLASSES.put(type, classes);
+      }
+      final WeakReference<Class<?>> reference = classes.get(body);
+      Class<?> mapperClass = reference == null ? null : reference.get();
+      if (mapperClass == null) {
+        mapperClass = generateMapperClass(type, loader, body);
+        // the defining class loader keeps the class alive, a strong reference here would pin the entity's loader
+        classes.put(body, new WeakReference<Class<?>>(mapperClass));
+      }
+      return mapperClass;
+    }
+  }
+
+  private static Class<?> generateMapperClass(Class<?> type, ClassLoader loader, String body) throws Exception {
+    final ClassPool pool = new ClassPool(true);
+    pool.appendClassPath(new LoaderClassPath(loader));
+    pool.appendClassPath(new ClassClassPath(RowMapper.class));
+    final CtClass ctClass = pool.makeClass(type.getName() + "$$RowMapperByJavassist$$" + CLASS_COUNTER.incrementAndGet());
+    ctClass.addInterface(pool.get(RowMapper.class.getName()));
+    ctClass.addField(CtField.make("private final Class type;", ctClass));
+    ctClass.addField(CtField.make("private final " + TypeHandler.class.getName() + "[] handlers;", ctClass));
+    ctClass.addField(CtField.make("private final String[] columns;", ctClass));
+    ctClass.addConstructor(CtNewConstructor.make("public " + ctClass.getSimpleName() + "(Class type, " + TypeHandler.class.getName()
+        + "[] handlers, String[] columns) { this.type = $1; this.handlers = $2; this.columns = $3; }", ctClass));
+    ctClass.addMethod(CtNewMethod.make(body, ctClass));
+    final Class<?> mapperClass = ctClass.toClass(loader, type.getProtectionDomain());
+    ctClass.detach();
+    return mapperClass;
+  }
+
+  private String generateMapRowBody(RowMappingPlan plan) {
+    final Class<?> type = plan.getType();
+    if (!isAccessible(type)) {
+      return null;
+    }
+    final String typeName = type.getName();
+    final StringBuilder body = new StringBuilder();
+    body.append("public Object mapRow(java.sql.ResultSet rs, ")
+        .append("org.apache.ibatis.reflection.factory.ObjectFactory objectFactory, ")
+        .append("org.apache.ibatis.session.Configuration configuration) throws java.sql.SQLException {\n");
+    body.append(typeName).append(" target = (").append(typeName).append(") objectFactory.create(this.type);\n");
+    body.append("boolean callSettersOnNulls = configuration.isCallSettersOnNulls();\n");
+    body.append("boolean found = false;\n");
+    final List<Step> steps = plan.getSteps();
+    for (int i = 0; i < steps.size(); i++) {
+      if (!appendStep(body, type, steps.get(i), i)) {
+        return null;
+      }
+    }
+    body.append("return (found || configuration.isReturnInstanceForEmptyRow()) ? target : null;\n}");
+    return body.toString();
+  }
+
+  private boolean appendStep(StringBuilder body, Class<?> type, Step step, int i) {
+    final Method setter = findSetter(type, step);
+    if (setter == null) {
+      return false;
+    }
+    final Class<?> parameterType = setter.getParameterTypes()[0];
+    final String set = "target." + setter.getName();
+    final String value = "v" + i;
+    final PrimitiveAccess access = step.getColumnIndex() > 0 ? findPrimitiveAccess(parameterType) : null;
+    if (access != null && access.typeHandlerType == step.getTypeHandler().getClass()) {
+      final String primitiveName = access.primitiveType.getName();
+      body.append("{ ").append(primitiveName).append(' ').append(value).append(" = rs.").append(access.getter)
+          .append('(').append(step.getColumnIndex()).append(");\n");
+      final String boxed = parameterType.isPrimitive() ? value
+          : access.wrapperType.getName() + ".valueOf(" + value + ")";
+      body.append("if (!rs.wasNull()) { found = true; ").append(set).append('(').append(boxed).append("); }");
+      appendNullBranch(body, set, parameterType);
+      body.append(" }\n");
+      return true;
+    }
+    if (parameterType.isPrimitive()) {
+      // a custom handler may return any wrapper, leave the conversion to reflection
+      return false;
+    }
+    final String parameterName = parameterType.getName();
+    if (step.getColumnIndex() > 0 && parameterType == String.class
+        && step.getTypeHandler().getClass() == StringTypeHandler.class) {
+      body.append("{ String ").append(value).append(" = rs.getString(").append(step.getColumnIndex()).append(");\n");
+    } else {
+      final String column = step.getColumnIndex() > 0 ? String.valueOf(step.getColumnIndex()) : "this.columns[" + i + "]";
+      body.append("{ Object ").append(value).append(" = this.handlers[").append(i).append("].getResult(rs, ")
+          .append(column).append(");\n");
+    }
+    body.append("if (").append(value).append(" != null) { found = true; ").append(set).append("((")
+        .append(parameterName).append(") ").append(value).append("); }");
+    appendNullBranch(body, set, parameterType);
+    body.append(" }\n");
+    return true;
+  }
+
+  private void appendNullBranch(StringBuilder body, String set, Class<?> parameterType) {
+    if (!parameterType.isPrimitive()) {
+      // gcode issue #377, call setter on nulls (value is not 'found')
+      body.append(" else if (callSettersOnNulls) { ").append(set).append("((").append(parameterType.getName())
+          .append(") null); }");
+    }
+  }
+
+  private Method findSetter(Class<?> type, Step step) {
+    final String property = step.getProperty();
+    final String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+    try {
+      final Method setter = type.getMethod(name, step.getPropertyType());
+      if (setter.getReturnType() == void.class && isAccessible(setter.getDeclaringClass())
+          && isAccessible(setter.getParameterTypes()[0])) {
+        return setter;
+      }
+    } catch (NoSuchMethodException e) {
+      // a field or an inherited generic setter, not worth generating
+    }
+    return null;
+  }
+
+  private static boolean isAccessible(Class<?> type) {
+    Class<?> current = type;
+    while (current.isArray()) {
+      current = current.getComponentType();
+    }
+    if (current.isPrimitive()) {
+      return true;
+    }
+    for (Class<?> c = current; c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    // the javassist compiler resolves inner classes by their binary name only
+    return current.getEnclosingClass() == null;
+  }
+
+  private static ClassLoader chooseClassLoader(Class<?> type) {
+    final ClassLoader typeLoader = type.getClassLoader();
+    if (typeLoader != null && canSee(typeLoader, RowMapper.class)) {
+      return typeLoader;
+    }
+    final ClassLoader mybatisLoader = RowMapper.class.getClassLoader();
+    if (mybatisLoader != null && canSee(mybatisLoader, type)) {
+      return mybatisLoader;
+    }
+    return null;
+  }
+
+  private static boolean canSee(ClassLoader loader, Class<?> type) {
+    try {
+      return Class.forName(type.getName(), false, loader) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static PrimitiveAccess findPrimitiveAccess(Class<?> parameterType) {
+    PrimitiveAccess access = PRIMITIVE_ACCESS.get(parameterType);
+    if (access == null) {
+      for (PrimitiveAccess candidate : PRIMITIVE_ACCESS.values()) {
+        if (candidate.wrapperType == parameterType) {
+          return candidate;
+        }
+      }
+    }
+    return access;
+  }
+
+  private static void registerPrimitiveAccess(Class<?> primitiveType, Class<?> wrapperType,
+      Class<? extends TypeHandler<?>> typeHandlerType, String getter) {
+    PRIMITIVE_ACCESS.put(primitiveType, new PrimitiveAccess(primitiveType, wrapperType, typeHandlerType, getter));
+  }
+
+  private static class PrimitiveAccess {
+    private final Class<?> primitiveType;
+    private final Class<?> wrapperType;
+    private final Class<?> typeHandlerType;
+    private final String getter;
+
+    PrimitiveAccess(Class<?> primitiveType, Class<?> wrapperType, Class<?> typeHandlerType, String getter) {
+      this.primitiveType = primitiveType;
+      this.wrapperType = wrapperType;
+      this.typeHandlerType = typeHandlerType;
+      this.getter = getter;
+    }
+  }
+
+}
@@ -96,6 +96,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
 			stmt.setQueryTimeout(queryTimeout);
 		}
 		StatementUtil.applyTransactionTimeout(stmt, queryTimeout, transactionTimeout);
+		//检测当前线程是否绑定了调用级别的截止时间,如果有则进一步缩短超时时间并登记为可取消的语句
+		StatementUtil.applyQueryDeadline(stmt);
 	}
 
 	protected void setFetchSize(Statement stmt) throws SQLException {
@@ -105,6 +107,10 @@ public abstract class BaseStatementHandler implements StatementHandler {
 			return;
 		}
 		Integer defaultFetchSize = configuration.getDefaultFetchSize();
+		if (configuration.isAdaptiveFetchSizeEnabled()) {
+			defaultFetchSize = mappedStatement.getFetchSizeStatistics().chooseFetchSize(
+					configuration.getAdaptiveFetchSizeMin(), configuration.getAdaptiveFetchSizeMax(), defaultFetchSize);
+		}
 		if (defaultFetchSize != null) {
 			stmt.setFetchSize(defaultFetchSize);
 		}
@@ -0,0 +1,157 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A per call deadline and cancellation handle for the statements executed by the current thread.
+ * <p>
+ * While a deadline is bound to a thread, every statement prepared on that thread gets a query timeout no longer than
+ * the time left before the deadline, and statements are not even sent to the database once the deadline has passed.
+ * {@link #cancel()} may be called from any thread to invoke {@link Statement#cancel()} on the statement currently
+ * being executed and to refuse any further statement.
+ * <pre>
+ * QueryDeadline deadline = QueryDeadline.after(2, TimeUnit.SECONDS);
+ * deadline.bind();
+ * try {
+ *   mapper.selectReport(criteria);
+ * } finally {
+ *   deadline.unbind();
+ * }
+ * </pre>
+ *
+ * @since 3.4.6
+ */
+public final class QueryDeadline {
+
+  private static final ThreadLocal<QueryDeadline> LOCAL = new ThreadLocal<QueryDeadline>();
+  private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+  private final long deadlineNanos;
+  private volatile boolean cancelled;
+  private volatile Statement statement;
+
+  private QueryDeadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Creates a deadline expiring after the given amount of time.
+   */
+  public static QueryDeadline after(long timeout, TimeUnit unit) {
+    return new QueryDeadline(System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /**
+   * Creates a handle that does not limit the execution time and is only used for cancellation.
+   */
+  public static QueryDeadline none() {
+    return new QueryDeadline(NO_DEADLINE);
+  }
+
+  /**
+   * Returns the deadline bound to the current thread, or {@code null} if there is none.
+   */
+  public static QueryDeadline current() {
+    return LOCAL.get();
+  }
+
+  /**
+   * Binds this deadline to the current thread, replacing any previously bound deadline.
+   */
+  public void bind() {
+    LOCAL.set(this);
+  }
+
+  /**
+   * Removes this deadline from the current thread if it is the bound one.
+   */
+  public void unbind() {
+    if (LOCAL.get() == this) {
+      LOCAL.remove();
+    }
+  }
+
+  /**
+   * Cancels the statement being executed, if any, and refuses any further statement prepared under this deadline.
+   * Can be called from any thread.
+   */
+  public void cancel() {
+    cancelled = true;
+    Statement current = statement;
+    if (current != null) {
+      cancelQuietly(current);
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public boolean isExpired() {
+    return deadlineNanos != NO_DEADLINE && deadlineNanos - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Returns the number of milliseconds left before the deadline, or {@code -1} if there is no deadline.
+   */
+  public long getRemainingMillis() {
+    if (deadlineNanos == NO_DEADLINE) {
+      return -1;
+    }
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+  }
+
+  /**
+   * Lowers the query timeout of the statement to the time left and registers it as the cancellation target.
+   */
+  void applyTo(Statement stmt) throws SQLException {
+    if (cancelled) {
+      throw new SQLException("The query has been cancelled.");
+    }
+    if (deadlineNanos != NO_DEADLINE) {
+      long remainingNanos = deadlineNanos - System.nanoTime();
+      if (remainingNanos <= 0) {
+        throw new SQLTimeoutException("The query deadline has been exceeded.");
+      }
+      // JDBC query timeouts have a granularity of one second
+      int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (remainingNanos + 999999999L) / 1000000000L);
+      int queryTimeout = stmt.getQueryTimeout();
+      if (queryTimeout == 0 || remainingSeconds < queryTimeout) {
+        stmt.setQueryTimeout(remainingSeconds);
+      }
+    }
+    statement = stmt;
+    if (cancelled) {
+      cancelQuietly(stmt);
+    }
+  }
+
+  private static void cancelQuietly(Statement stmt) {
+    try {
+      stmt.cancel();
+    } catch (SQLException e) {
+      // ignore, the statement may have been closed in the meantime
+    } catch (RuntimeException e) {
+      // ignore
+    }
+  }
+
+}
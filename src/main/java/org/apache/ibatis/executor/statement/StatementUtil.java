@@ -55,4 +55,21 @@ public class StatementUtil {
     }
   }
 
+  /**
+   * Apply the query deadline bound to the current thread, if any.
+   * <p>
+   * Lowers the query timeout to the time left before the deadline and registers the statement
+   * as the target of {@link QueryDeadline#cancel()}.
+   * </p>
+   * @param statement a target statement
+   * @throws SQLException if the deadline has already passed or has been cancelled, or if a database access error occurs
+   * @since 3.4.6
+   */
+  public static void applyQueryDeadline(Statement statement) throws SQLException {
+    QueryDeadline deadline = QueryDeadline.current();
+    if (deadline != null) {
+      deadline.applyTo(statement);
+    }
+  }
+
 }
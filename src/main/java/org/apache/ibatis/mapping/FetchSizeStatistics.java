@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the number of rows recently returned by a {@link MappedStatement} and derives a
+ * JDBC fetch size from that history when the {@code adaptiveFetchSizeEnabled} setting is on.
+ * <p>
+ * The row estimate is an exponential moving average weighted 1/4 towards the latest execution,
+ * so one unusually large or small result does not swing the fetch size on its own. It is kept in
+ * fixed point (1/16 of a row) so that it still converges on small results.
+ * All updates are lock free; a lost update under contention only delays convergence.
+ */
+public class FetchSizeStatistics {
+
+	private static final long NO_ESTIMATE = -1;
+	private static final int SCALE = 16;
+
+	private final AtomicLong scaledAverageRows = new AtomicLong(NO_ESTIMATE);
+	private final AtomicLong executionCount = new AtomicLong();
+	private volatile int lastFetchSize;
+
+	/**
+	 * Records the number of rows read from the result set of one execution.
+	 */
+	public void recordRows(int rows) {
+		if (rows < 0) {
+			return;
+		}
+		executionCount.incrementAndGet();
+		for (;;) {
+			long current = scaledAverageRows.get();
+			long scaledRows = (long) rows * SCALE;
+			long next = current == NO_ESTIMATE ? scaledRows : current + (scaledRows - current) / 4;
+			if (scaledAverageRows.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Picks a fetch size within {@code [min, max]} that would fetch an average result in a single
+	 * round trip. Returns {@code fallback} (which may be {@code null}) while there is no history yet.
+	 */
+	public Integer chooseFetchSize(int min, int max, Integer fallback) {
+		int average = getAverageRows();
+		if (average < 0) {
+			if (fallback != null) {
+				lastFetchSize = fallback;
+			}
+			return fallback;
+		}
+		// one extra row lets the driver see the end of the result without another round trip
+		long wanted = (long) average + 1;
+		int chosen = (int) Math.max(min, Math.min(max, wanted));
+		lastFetchSize = chosen;
+		return chosen;
+	}
+
+	/**
+	 * @return the moving average of rows per execution, or {@code -1} when nothing was recorded yet
+	 */
+	public int getAverageRows() {
+		long scaled = scaledAverageRows.get();
+		return scaled == NO_ESTIMATE ? -1 : (int) ((scaled + SCALE / 2) / SCALE);
+	}
+
+	public long getExecutionCount() {
+		return executionCount.get();
+	}
+
+	/**
+	 * @return the fetch size applied on the last adaptive execution, or {@code 0} when none was applied
+	 */
+	public int getLastFetchSize() {
+		return lastFetchSize;
+	}
+
+	public void reset() {
+		scaledAverageRows.set(NO_ESTIMATE);
+		executionCount.set(0);
+		lastFetchSize = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "FetchSizeStatistics [executions=" + getExecutionCount() + ", averageRows=" + getAverageRows()
+				+ ", lastFetchSize=" + getLastFetchSize() + "]";
+	}
+
+}
@@ -8,6 +8,7 @@ import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.resultset.ResultSetLayoutCache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -41,6 +42,8 @@ public final class MappedStatement {
 	private Log statementLog;
 	private LanguageDriver lang;
 	private String[] resultSets;
+	private final FetchSizeStatistics fetchSizeStatistics = new FetchSizeStatistics();
+	private final ResultSetLayoutCache resultSetLayoutCache = new ResultSetLayoutCache();
 
 	MappedStatement() {
 		// constructor disabled
@@ -204,6 +207,20 @@ public final class MappedStatement {
 		return fetchSize;
 	}
 
+	/**
+	 * Row count history used to pick a fetch size when {@code adaptiveFetchSizeEnabled} is set.
+	 */
+	public FetchSizeStatistics getFetchSizeStatistics() {
+		return fetchSizeStatistics;
+	}
+
+	/**
+	 * @return the column layouts of the result sets this statement returned, shared by its executions
+	 */
+	public ResultSetLayoutCache getResultSetLayoutCache() {
+		return resultSetLayoutCache;
+	}
+
 	public Integer getTimeout() {
 		return timeout;
 	}
@@ -50,6 +50,7 @@ public class ResultMap {
   private Discriminator discriminator;
   private boolean hasNestedResultMaps;
   private boolean hasNestedQueries;
+  private boolean hasIdMappings;
   private Boolean autoMapping;
 
   private ResultMap() {
@@ -121,6 +122,7 @@ public class ResultMap {
           resultMap.idResultMappings.add(resultMapping);
         }
       }
+      resultMap.hasIdMappings = !resultMap.idResultMappings.isEmpty();
       if (resultMap.idResultMappings.isEmpty()) {
         resultMap.idResultMappings.addAll(resultMap.resultMappings);
       }
@@ -223,6 +225,14 @@ public class ResultMap {
     return hasNestedQueries;
   }
 
+  /**
+   * Whether this result map declares {@code <id>} or {@code <idArg>} mappings. Without them, rows are told apart
+   * by all of their mapped columns.
+   */
+  public boolean hasIdMappings() {
+    return hasIdMappings;
+  }
+
   public Class<?> getType() {
     return type;
   }
@@ -0,0 +1,135 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预先解析好的标识模板
+ * 与GenericTokenParser使用相同的转义及未闭合标识规则,将文本一次性拆分成字面量与标识内容,
+ * 之后可以针对不同的TokenHandler反复求值,而不需要再次扫描文本
+ */
+public final class TokenTemplate {
+
+	//字面量片段,数量总比标识多一个
+	private final String[] literals;
+	//标识中的内容
+	private final String[] tokens;
+	//所有字面量的总长度,用于预估拼接结果的大小
+	private final int literalLength;
+
+	private TokenTemplate(List<String> literals, List<String> tokens) {
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.tokens = tokens.toArray(new String[tokens.size()]);
+		int length = 0;
+		for (String literal : this.literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+
+	/*
+	 * 解析给定的内容,拆分出标识与标识之间的字面量
+	 */
+	public static TokenTemplate compile(String openToken, String closeToken, String text) {
+		List<String> literals = new ArrayList<String>();
+		List<String> tokens = new ArrayList<String>();
+		if (text == null || text.isEmpty()) {
+			literals.add("");
+			return new TokenTemplate(literals, tokens);
+		}
+		StringBuilder literal = new StringBuilder();
+		int offset = 0;
+		int start = text.indexOf(openToken);
+		while (start > -1) {
+			if (start > 0 && text.charAt(start - 1) == '\\') {
+				// this open token is escaped. remove the backslash and continue.
+				literal.append(text, offset, start - 1).append(openToken);
+				offset = start + openToken.length();
+			} else {
+				StringBuilder expression = new StringBuilder();
+				int from = start + openToken.length();
+				int end = text.indexOf(closeToken, from);
+				while (end > from && text.charAt(end - 1) == '\\') {
+					// this close token is escaped. remove the backslash and continue.
+					expression.append(text, from, end - 1).append(closeToken);
+					from = end + closeToken.length();
+					end = text.indexOf(closeToken, from);
+				}
+				if (end == -1) {
+					//没有结束标识,剩余的内容都作为字面量
+					literal.append(text, offset, text.length());
+					offset = text.length();
+				} else {
+					expression.append(text, from, end);
+					literal.append(text, offset, start);
+					literals.add(literal.toString());
+					tokens.add(expression.toString());
+					literal.setLength(0);
+					offset = end + closeToken.length();
+				}
+			}
+			start = text.indexOf(openToken, offset);
+		}
+		literal.append(text, offset, text.length());
+		literals.add(literal.toString());
+		return new TokenTemplate(literals, tokens);
+	}
+
+	public boolean hasTokens() {
+		return tokens.length > 0;
+	}
+
+	public int getTokenCount() {
+		return tokens.length;
+	}
+
+	public String getToken(int index) {
+		return tokens[index];
+	}
+
+	/*
+	 * 获取第index个标识之前的字面量,index等于标识数量时返回最后一个标识之后的字面量
+	 */
+	public String getLiteral(int index) {
+		return literals[index];
+	}
+
+	public int getLiteralLength() {
+		return literalLength;
+	}
+
+	/*
+	 * 使用给定的处理器转换所有标识,结果与GenericTokenParser.parse一致
+	 */
+	public String apply(TokenHandler handler) {
+		if (tokens.length == 0) {
+			return literals[0];
+		}
+		StringBuilder builder = new StringBuilder(literalLength + 16 * tokens.length);
+		appendTo(builder, handler);
+		return builder.toString();
+	}
+
+	public void appendTo(StringBuilder builder, TokenHandler handler) {
+		builder.append(literals[0]);
+		for (int i = 0; i < tokens.length; i++) {
+			builder.append(handler.handleToken(tokens[i]));
+			builder.append(literals[i + 1]);
+		}
+	}
+}
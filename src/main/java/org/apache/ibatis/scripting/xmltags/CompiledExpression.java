@@ -0,0 +1,502 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ognl.ASTChain;
+import ognl.ASTConst;
+import ognl.ASTMethod;
+import ognl.ASTProperty;
+import ognl.BooleanExpression;
+import ognl.MapPropertyAccessor;
+import ognl.Node;
+import ognl.ObjectPropertyAccessor;
+import ognl.OgnlException;
+import ognl.OgnlOps;
+import ognl.OgnlRuntime;
+import ognl.PropertyAccessor;
+
+/**
+ * Evaluates the subset of OGNL that dynamic SQL tests are usually written in (property paths, no-argument method
+ * calls, literals, comparisons, {@code and}, {@code or} and {@code not}) directly against the bindings, without
+ * creating an OGNL context per evaluation. Expressions are compiled from the parsed OGNL tree and operators delegate
+ * to {@link OgnlOps}, so results are the same as OGNL's. Whenever a value cannot be read the way OGNL would read it
+ * (a null in the middle of a path, a collection or array property, a type without a plain public getter)
+ * {@link #UNRESOLVED} is returned and the caller falls back to OGNL.
+ */
+abstract class CompiledExpression {
+
+  static final Object UNRESOLVED = new Object();
+
+  private static final DynamicContext.ContextAccessor CONTEXT_ACCESSOR = new DynamicContext.ContextAccessor();
+  private static final Map<Class<?>, TypeAccess> typeAccessCache = new ConcurrentHashMap<Class<?>, TypeAccess>();
+
+  abstract Object getValue(Object root);
+
+  /**
+   * Whether every property path in the expression starts at the given root property, so that the result only
+   * changes with that property. An expression made of literals depends on nothing.
+   */
+  abstract boolean dependsOnlyOn(String property);
+
+  /**
+   * Compiles a parsed OGNL expression, or returns null when it uses anything outside the supported subset.
+   */
+  static CompiledExpression compile(Object node) {
+    if (node instanceof ASTConst) {
+      return new Constant(((ASTConst) node).getValue());
+    }
+    if (node instanceof ASTProperty || node instanceof ASTChain) {
+      return compilePath((Node) node);
+    }
+    if (node instanceof BooleanExpression) {
+      BooleanExpression expression = (BooleanExpression) node;
+      CompiledExpression[] operands = new CompiledExpression[expression.jjtGetNumChildren()];
+      for (int i = 0; i < operands.length; i++) {
+        operands[i] = compile(expression.jjtGetChild(i));
+        if (operands[i] == null) {
+          return null;
+        }
+      }
+      String operator = expression.getExpressionOperator(0);
+      if ("&&".equals(operator)) {
+        return new And(operands);
+      }
+      if ("||".equals(operator)) {
+        return new Or(operands);
+      }
+      if ("!".equals(operator) && operands.length == 1) {
+        return new Not(operands[0]);
+      }
+      if (operands.length == 2) {
+        int comparison = Comparison.operatorOf(operator);
+        if (comparison >= 0) {
+          return new Comparison(comparison, operands[0], operands[1]);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static CompiledExpression compilePath(Node node) {
+    Node[] children;
+    if (node instanceof ASTChain) {
+      children = new Node[node.jjtGetNumChildren()];
+      for (int i = 0; i < children.length; i++) {
+        children[i] = node.jjtGetChild(i);
+      }
+    } else {
+      children = new Node[] { node };
+    }
+    Segment[] segments = new Segment[children.length];
+    for (int i = 0; i < children.length; i++) {
+      Node child = children[i];
+      if (child instanceof ASTProperty) {
+        ASTProperty property = (ASTProperty) child;
+        if (property.isIndexedAccess() || property.jjtGetNumChildren() != 1
+            || !(property.jjtGetChild(0) instanceof ASTConst)
+            || !(((ASTConst) property.jjtGetChild(0)).getValue() instanceof String)) {
+          return null;
+        }
+        segments[i] = new Segment((String) ((ASTConst) property.jjtGetChild(0)).getValue(), false);
+      } else if (child instanceof ASTMethod && i > 0 && child.jjtGetNumChildren() == 0) {
+        segments[i] = new Segment(((ASTMethod) child).getMethodName(), true);
+      } else {
+        return null;
+      }
+    }
+    return new Path(segments);
+  }
+
+  private static final class Constant extends CompiledExpression {
+    private final Object value;
+
+    Constant(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      return value;
+    }
+
+    @Override
+    boolean dependsOnlyOn(String property) {
+      return true;
+    }
+  }
+
+  private static final class Path extends CompiledExpression {
+    private final Segment[] segments;
+
+    Path(Segment[] segments) {
+      this.segments = segments;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = root;
+      for (Segment segment : segments) {
+        if (value == null) {
+          return UNRESOLVED;
+        }
+        value = segment.getValue(value);
+        if (value == UNRESOLVED) {
+          return UNRESOLVED;
+        }
+      }
+      return value;
+    }
+
+    @Override
+    boolean dependsOnlyOn(String property) {
+      return property.equals(segments[0].name);
+    }
+  }
+
+  private static final class And extends CompiledExpression {
+    private final CompiledExpression[] operands;
+
+    And(CompiledExpression[] operands) {
+      this.operands = operands;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = null;
+      for (int i = 0; i < operands.length; i++) {
+        value = operands[i].getValue(root);
+        if (value == UNRESOLVED || (i < operands.length - 1 && !OgnlOps.booleanValue(value))) {
+          break;
+        }
+      }
+      return value;
+    }
+
+    @Override
+    boolean dependsOnlyOn(String property) {
+      for (CompiledExpression operand : operands) {
+        if (!operand.dependsOnlyOn(property)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Or extends CompiledExpression {
+    private final CompiledExpression[] operands;
+
+    Or(CompiledExpression[] operands) {
+      this.operands = operands;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = null;
+      for (int i = 0; i < operands.length; i++) {
+        value = operands[i].getValue(root);
+        if (value == UNRESOLVED || (i < operands.length - 1 && OgnlOps.booleanValue(value))) {
+          break;
+        }
+      }
+      return value;
+    }
+
+    @Override
+    boolean dependsOnlyOn(String property) {
+      for (CompiledExpression operand : operands) {
+        if (!operand.dependsOnlyOn(property)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Not extends CompiledExpression {
+    private final CompiledExpression operand;
+
+    Not(CompiledExpression operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = operand.getValue(root);
+      if (value == UNRESOLVED) {
+        return UNRESOLVED;
+      }
+      return OgnlOps.booleanValue(value) ? Boolean.FALSE : Boolean.TRUE;
+    }
+
+    @Override
+    boolean dependsOnlyOn(String property) {
+      return operand.dependsOnlyOn(property);
+    }
+  }
+
+  private static final class Comparison extends CompiledExpression {
+    private static final String[] OPERATORS = { "==", "!=", "<", ">", "<=", ">=" };
+
+    private final int operator;
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    Comparison(int operator, CompiledExpression left, CompiledExpression right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    static int operatorOf(String operator) {
+      for (int i = 0; i < OPERATORS.length; i++) {
+        if (OPERATORS[i].equals(operator)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object v1 = left.getValue(root);
+      if (v1 == UNRESOLVED) {
+        return UNRESOLVED;
+      }
+      Object v2 = right.getValue(root);
+      if (v2 == UNRESOLVED) {
+        return UNRESOLVED;
+      }
+      boolean result;
+      switch (operator) {
+        case 0:
+          result = OgnlOps.equal(v1, v2);
+          break;
+        case 1:
+          result = !OgnlOps.equal(v1, v2);
+          break;
+        case 2:
+          result = OgnlOps.less(v1, v2);
+          break;
+        case 3:
+          result = OgnlOps.greater(v1, v2);
+          break;
+        case 4:
+          result = !OgnlOps.greater(v1, v2);
+          break;
+        default:
+          result = !OgnlOps.less(v1, v2);
+          break;
+      }
+      return result ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    @Override
+    boolean dependsOnlyOn(String property) {
+      return left.dependsOnlyOn(property) && right.dependsOnlyOn(property);
+    }
+  }
+
+  /**
+   * One step of a property path. Remembers how the last target type was read, so a test evaluated against the same
+   * parameter type over and over resolves its getter once.
+   */
+  private static final class Segment {
+    private final String name;
+    private final boolean methodCall;
+    private volatile Binding binding;
+
+    Segment(String name, boolean methodCall) {
+      this.name = name;
+      this.methodCall = methodCall;
+    }
+
+    Object getValue(Object target) {
+      Class<?> type = target.getClass();
+      Binding current = binding;
+      if (current == null || current.type != type) {
+        current = new Binding(type, name, methodCall);
+        binding = current;
+      }
+      try {
+        switch (current.kind) {
+          case TypeAccess.CONTEXT:
+            return CONTEXT_ACCESSOR.getProperty(null, target, name);
+          case TypeAccess.MAP:
+            return ((Map<?, ?>) target).get(name);
+          case TypeAccess.METHOD:
+            return current.method.invoke(target);
+          default:
+            return UNRESOLVED;
+        }
+      } catch (Exception e) {
+        return UNRESOLVED;
+      }
+    }
+  }
+
+  private static final class Binding {
+    private final Class<?> type;
+    private final int kind;
+    private final Method method;
+
+    Binding(Class<?> type, String name, boolean methodCall) {
+      TypeAccess access = typeAccess(type);
+      Method resolved = null;
+      int resolvedKind = TypeAccess.UNSUPPORTED;
+      if (methodCall) {
+        resolved = access.getMethod(name);
+      } else if (access.kind == TypeAccess.MAP && !isMapPseudoProperty(name)) {
+        resolvedKind = TypeAccess.MAP;
+      } else if (access.kind == TypeAccess.CONTEXT) {
+        resolvedKind = TypeAccess.CONTEXT;
+      } else if (access.kind == TypeAccess.BEAN) {
+        resolved = access.getGetter(name);
+      }
+      if (resolved != null) {
+        resolvedKind = TypeAccess.METHOD;
+      }
+      this.type = type;
+      this.kind = resolvedKind;
+      this.method = resolved;
+    }
+
+    // names OGNL's MapPropertyAccessor answers from the map itself instead of its entries
+    private static boolean isMapPseudoProperty(String name) {
+      return "size".equals(name) || "keys".equals(name) || "keySet".equals(name) || "values".equals(name)
+          || "isEmpty".equals(name);
+    }
+  }
+
+  private static TypeAccess typeAccess(Class<?> type) {
+    TypeAccess access = typeAccessCache.get(type);
+    if (access == null) {
+      access = new TypeAccess(type);
+      typeAccessCache.put(type, access);
+    }
+    return access;
+  }
+
+  private static final class TypeAccess {
+    static final int UNSUPPORTED = 0;
+    static final int CONTEXT = 1;
+    static final int MAP = 2;
+    static final int BEAN = 3;
+    static final int METHOD = 4;
+
+    private static final Object NONE = new Object();
+
+    private final Class<?> type;
+    private final int kind;
+    private final Map<String, Object> getters = new ConcurrentHashMap<String, Object>();
+    private final Map<String, Object> methods = new ConcurrentHashMap<String, Object>();
+
+    TypeAccess(Class<?> type) {
+      this.type = type;
+      this.kind = kindOf(type);
+    }
+
+    // only the accessors OGNL registers for maps and plain objects are reproduced; lists, sets, arrays, iterators
+    // and custom accessors keep going through OGNL
+    private static int kindOf(Class<?> type) {
+      PropertyAccessor accessor;
+      try {
+        accessor = OgnlRuntime.getPropertyAccessor(type);
+      } catch (OgnlException e) {
+        return UNSUPPORTED;
+      }
+      if (accessor == null) {
+        return UNSUPPORTED;
+      }
+      Class<?> accessorType = accessor.getClass();
+      if (accessorType == DynamicContext.ContextAccessor.class) {
+        return CONTEXT;
+      }
+      if (accessorType == MapPropertyAccessor.class) {
+        return MAP;
+      }
+      if (accessorType == ObjectPropertyAccessor.class) {
+        return BEAN;
+      }
+      return UNSUPPORTED;
+    }
+
+    Method getGetter(String property) {
+      Object getter = getters.get(property);
+      if (getter == null) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        Method get = findMethod("get" + suffix);
+        Method is = findMethod("is" + suffix);
+        if (is != null && is.getReturnType() != boolean.class && is.getReturnType() != Boolean.class) {
+          is = null;
+        }
+        getter = get != null && is != null ? NONE : get != null ? get : is != null ? is : NONE;
+        getters.put(property, getter);
+      }
+      return getter == NONE ? null : (Method) getter;
+    }
+
+    Method getMethod(String name) {
+      Object method = methods.get(name);
+      if (method == null) {
+        Method found = findMethod(name);
+        method = found == null ? NONE : found;
+        methods.put(name, method);
+      }
+      return method == NONE ? null : (Method) method;
+    }
+
+    private Method findMethod(String name) {
+      Method method = findPublicMethod(type, name);
+      if (method == null || Modifier.isStatic(method.getModifiers()) || method.getReturnType() == void.class) {
+        return null;
+      }
+      return method;
+    }
+
+    // resolves the method where a public type declares it, e.g. List.size() for Arrays$ArrayList, instead of forcing
+    // access to a non-public class, which modules refuse on JDK 9 and later
+    private static Method findPublicMethod(Class<?> type, String name) {
+      if (type == null) {
+        return null;
+      }
+      if (Modifier.isPublic(type.getModifiers())) {
+        Method method;
+        try {
+          method = type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+          return null;
+        }
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+          return method;
+        }
+      }
+      for (Class<?> implemented : type.getInterfaces()) {
+        Method method = findPublicMethod(implemented, name);
+        if (method != null) {
+          return method;
+        }
+      }
+      return findPublicMethod(type.getSuperclass(), name);
+    }
+  }
+
+}
@@ -39,20 +39,40 @@ public class DynamicContext {
   }
 
   private final ContextMap bindings;
-  private final StringBuilder sqlBuilder = new StringBuilder();
+  private final StringBuilder sqlBuilder;
   private int uniqueNumber = 0;
 
   public DynamicContext(Configuration configuration, Object parameterObject) {
+    this(configuration, parameterObject, 16, 0);
+  }
+
+  /**
+   * Sizes the SQL buffer and the bindings after an earlier rendering of the same statement, so neither has to grow
+   * while rendering.
+   *
+   * @param sqlCapacity expected length of the rendered SQL
+   * @param bindingCount expected number of bindings, including the ones added by foreach and bind
+   */
+  DynamicContext(Configuration configuration, Object parameterObject, int sqlCapacity, int bindingCount) {
+    sqlBuilder = new StringBuilder(sqlCapacity);
+    MetaObject metaObject = null;
     if (parameterObject != null && !(parameterObject instanceof Map)) {
-      MetaObject metaObject = configuration.newMetaObject(parameterObject);
-      bindings = new ContextMap(metaObject);
-    } else {
-      bindings = new ContextMap(null);
+      metaObject = configuration.newMetaObject(parameterObject);
     }
+    bindings = new ContextMap(metaObject, Math.max(16, (int) (bindingCount / 0.75f) + 1));
     bindings.put(PARAMETER_OBJECT_KEY, parameterObject);
     bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
   }
 
+  /**
+   * For contexts that wrap another one and override every method: shares the delegate's bindings and buffer
+   * instead of allocating their own.
+   */
+  DynamicContext(DynamicContext delegate) {
+    this.bindings = delegate.bindings;
+    this.sqlBuilder = delegate.sqlBuilder;
+  }
+
   public Map<String, Object> getBindings() {
     return bindings;
   }
@@ -67,7 +87,15 @@ public class DynamicContext {
   }
 
   public String getSql() {
-    return sqlBuilder.toString().trim();
+    int start = 0;
+    int end = sqlBuilder.length();
+    while (start < end && sqlBuilder.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && sqlBuilder.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return sqlBuilder.substring(start, end);
   }
 
   public int getUniqueNumber() {
@@ -82,6 +110,11 @@ public class DynamicContext {
       this.parameterMetaObject = parameterMetaObject;
     }
 
+    ContextMap(MetaObject parameterMetaObject, int initialCapacity) {
+      super(initialCapacity);
+      this.parameterMetaObject = parameterMetaObject;
+    }
+
     @Override
     public Object get(Object key) {
       String strKey = (String) key;
@@ -0,0 +1,145 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rendering statistics of one {@link DynamicSqlSource}, collected while
+ * {@link org.apache.ibatis.session.Configuration#isDynamicSqlMetricsEnabled()} is set.
+ * <p>
+ * The number of distinct SQL texts (shapes) is estimated with a HyperLogLog sketch of 1024 registers, so the memory
+ * used per statement stays fixed however many shapes it renders; the estimate has a standard error of about 3%.
+ */
+public class DynamicSqlMetrics {
+
+  private static final int PRECISION = 10;
+  private static final int REGISTERS = 1 << PRECISION;
+
+  private final AtomicIntegerArray registers = new AtomicIntegerArray(REGISTERS);
+  private final AtomicLong renderCount = new AtomicLong();
+  private final AtomicLong totalRenderNanos = new AtomicLong();
+  private final AtomicLong maxRenderNanos = new AtomicLong();
+  private final AtomicLong totalBindCount = new AtomicLong();
+  private final AtomicLong maxBindCount = new AtomicLong();
+
+  /**
+   * @param sql the rendered SQL, with {@code ?} placeholders
+   * @param bindCount number of parameters bound to the statement
+   * @param renderNanos time spent rendering and parsing the SQL
+   */
+  public void record(String sql, int bindCount, long renderNanos) {
+    renderCount.incrementAndGet();
+    totalRenderNanos.addAndGet(renderNanos);
+    updateMax(maxRenderNanos, renderNanos);
+    totalBindCount.addAndGet(bindCount);
+    updateMax(maxBindCount, bindCount);
+    long hash = mix(sql.hashCode());
+    int index = (int) (hash >>> (64 - PRECISION));
+    int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+    int current = registers.get(index);
+    while (rank > current && !registers.compareAndSet(index, current, rank)) {
+      current = registers.get(index);
+    }
+  }
+
+  public long getRenderCount() {
+    return renderCount.get();
+  }
+
+  /**
+   * Estimated number of distinct SQL texts rendered.
+   */
+  public long getDistinctShapes() {
+    double sum = 0;
+    int zeros = 0;
+    for (int i = 0; i < REGISTERS; i++) {
+      int register = registers.get(i);
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    if (zeros == REGISTERS) {
+      return 0;
+    }
+    double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+    double estimate = alpha * REGISTERS * REGISTERS / sum;
+    if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+      // linear counting is more accurate while most registers are still empty
+      estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public long getAverageRenderNanos() {
+    long count = renderCount.get();
+    return count == 0 ? 0 : totalRenderNanos.get() / count;
+  }
+
+  public long getMaxRenderNanos() {
+    return maxRenderNanos.get();
+  }
+
+  public double getAverageBindCount() {
+    long count = renderCount.get();
+    return count == 0 ? 0 : (double) totalBindCount.get() / count;
+  }
+
+  public long getMaxBindCount() {
+    return maxBindCount.get();
+  }
+
+  public void reset() {
+    for (int i = 0; i < REGISTERS; i++) {
+      registers.set(i, 0);
+    }
+    renderCount.set(0);
+    totalRenderNanos.set(0);
+    maxRenderNanos.set(0);
+    totalBindCount.set(0);
+    maxBindCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "DynamicSqlMetrics[renders=" + getRenderCount() + ", shapes=" + getDistinctShapes() + ", avgRenderNanos="
+        + getAverageRenderNanos() + ", maxRenderNanos=" + getMaxRenderNanos() + ", avgBinds=" + getAverageBindCount()
+        + ", maxBinds=" + getMaxBindCount() + "]";
+  }
+
+  private static void updateMax(AtomicLong max, long value) {
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Spreads the 32 bit string hash over 64 bits (the MurmurHash3 finalizer), so that the register index and the
+   * rank are taken from independent bits.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
@@ -0,0 +1,41 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.Map;
+
+/**
+ * JMX view of the dynamic SQL metrics of one configuration, registered through {@link DynamicSqlMetricsMonitor}.
+ */
+public interface DynamicSqlMetricsMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  /**
+   * Metrics of every dynamic statement rendered while enabled, keyed by statement id.
+   */
+  Map<String, DynamicSqlMetrics> getStatements();
+
+  /**
+   * Ids of the statements that rendered at least {@code minShapes} distinct SQL texts, most shapes first.
+   */
+  String[] findShapeExplosions(long minShapes);
+
+  void reset();
+
+}
@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.scripting.ScriptingException;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Exposes {@link Configuration#getDynamicSqlMetrics()} over JMX as
+ * {@code org.apache.ibatis:type=DynamicSqlMetrics,id=<environment id>}.
+ */
+public class DynamicSqlMetricsMonitor implements DynamicSqlMetricsMXBean {
+
+  private final Configuration configuration;
+  private MBeanServer server;
+  private ObjectName name;
+
+  public DynamicSqlMetricsMonitor(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  public ObjectName register() {
+    return register(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  public synchronized ObjectName register(MBeanServer server) {
+    String id = configuration.getEnvironment() == null
+        ? Integer.toHexString(System.identityHashCode(configuration)) : configuration.getEnvironment().getId();
+    try {
+      ObjectName objectName = new ObjectName("org.apache.ibatis:type=DynamicSqlMetrics,id=" + ObjectName.quote(id));
+      server.registerMBean(this, objectName);
+      this.server = server;
+      this.name = objectName;
+      return objectName;
+    } catch (JMException e) {
+      throw new ScriptingException("Error registering dynamic SQL metrics for " + id + ". Cause: " + e, e);
+    }
+  }
+
+  public synchronized void unregister() {
+    if (name == null) {
+      return;
+    }
+    try {
+      server.unregisterMBean(name);
+    } catch (JMException e) {
+      throw new ScriptingException("Error unregistering " + name + ". Cause: " + e, e);
+    } finally {
+      server = null;
+      name = null;
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return configuration.isDynamicSqlMetricsEnabled();
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    configuration.setDynamicSqlMetricsEnabled(enabled);
+  }
+
+  @Override
+  public Map<String, DynamicSqlMetrics> getStatements() {
+    return configuration.getDynamicSqlMetrics();
+  }
+
+  @Override
+  public String[] findShapeExplosions(long minShapes) {
+    Map<String, DynamicSqlMetrics> metrics = configuration.getDynamicSqlMetrics();
+    final Map<String, Long> shapes = new HashMap<String, Long>();
+    List<String> ids = new ArrayList<String>();
+    for (Map.Entry<String, DynamicSqlMetrics> entry : metrics.entrySet()) {
+      long distinctShapes = entry.getValue().getDistinctShapes();
+      if (distinctShapes >= minShapes) {
+        shapes.put(entry.getKey(), distinctShapes);
+        ids.add(entry.getKey());
+      }
+    }
+    Collections.sort(ids, new Comparator<String>() {
+      @Override
+      public int compare(String o1, String o2) {
+        return shapes.get(o2).compareTo(shapes.get(o1));
+      }
+    });
+    return ids.toArray(new String[ids.size()]);
+  }
+
+  @Override
+  public void reset() {
+    for (DynamicSqlMetrics metrics : configuration.getDynamicSqlMetrics().values()) {
+      metrics.reset();
+    }
+  }
+
+}
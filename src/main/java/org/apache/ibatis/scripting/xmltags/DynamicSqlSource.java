@@ -1,10 +1,15 @@
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -14,6 +19,17 @@ public class DynamicSqlSource implements SqlSource {
 
 	private final Configuration configuration;
 	private final SqlNode rootSqlNode;
+	private volatile int sqlCapacity = 16;
+	private volatile int bindingCount;
+	private volatile DynamicSqlMetrics metrics;
+	private final Map<ParsedSqlKey, ParsedSql> parsedSqlCache = new LinkedHashMap<ParsedSqlKey, ParsedSql>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ParsedSqlKey, ParsedSql> eldest) {
+			return size() > configuration.getDynamicSqlCacheSize();
+		}
+	};
 
 	public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
 		this.configuration = configuration;
@@ -22,16 +38,176 @@ public class DynamicSqlSource implements SqlSource {
 
 	@Override
 	public BoundSql getBoundSql(Object parameterObject) {
-		DynamicContext context = new DynamicContext(configuration, parameterObject);
+		if (!configuration.isDynamicSqlMetricsEnabled()) {
+			return render(parameterObject);
+		}
+		long start = System.nanoTime();
+		BoundSql boundSql = render(parameterObject);
+		metrics().record(boundSql.getSql(), boundSql.getParameterMappings().size(), System.nanoTime() - start);
+		return boundSql;
+	}
+
+	/**
+	 * Rendering statistics of this statement, collected while dynamic SQL metrics are enabled in the configuration;
+	 * {@code null} if it has not been rendered with metrics enabled.
+	 */
+	public DynamicSqlMetrics getMetrics() {
+		return metrics;
+	}
+
+	private DynamicSqlMetrics metrics() {
+		DynamicSqlMetrics current = metrics;
+		if (current == null) {
+			synchronized (this) {
+				current = metrics;
+				if (current == null) {
+					current = new DynamicSqlMetrics();
+					metrics = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private BoundSql render(Object parameterObject) {
+		DynamicContext context = new DynamicContext(configuration, parameterObject, sqlCapacity, bindingCount);
 		rootSqlNode.apply(context);
-		SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
 		Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-		SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-		BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+		String sql = context.getSql();
+		// size the next rendering after this one; the trimmed text no longer has its trailing separator
+		sqlCapacity = sql.length() + 16;
+		bindingCount = context.getBindings().size();
+		BoundSql boundSql = getParsedSql(sql, parameterType, context.getBindings(), parameterObject);
 		for (Map.Entry<String, Object> entry : context.getBindings().entrySet()) {
 			boundSql.setAdditionalParameter(entry.getKey(), entry.getValue());
 		}
 		return boundSql;
 	}
 
+	/**
+	 * Parses the rendered SQL, reusing the parameter mappings of an earlier call that rendered the same text for the
+	 * same parameter type. The type of a property bound by the script itself (a foreach item or a bind variable)
+	 * depends on the value bound in this call, so a cached entry is only reused when those types still match.
+	 */
+	private BoundSql getParsedSql(String sql, Class<?> parameterType, Map<String, Object> bindings,
+			Object parameterObject) {
+		int cacheSize = configuration.getDynamicSqlCacheSize();
+		if (cacheSize <= 0) {
+			return parse(sql, parameterType, bindings, parameterObject);
+		}
+		ParsedSqlKey key = new ParsedSqlKey(sql, parameterType);
+		ParsedSql parsedSql;
+		synchronized (parsedSqlCache) {
+			parsedSql = parsedSqlCache.get(key);
+		}
+		if (parsedSql != null && parsedSql.matches(configuration, bindings)) {
+			return new BoundSql(configuration, parsedSql.sql, parsedSql.parameterMappings, parameterObject);
+		}
+		BoundSql boundSql = parse(sql, parameterType, bindings, parameterObject);
+		parsedSql = new ParsedSql(configuration, boundSql.getSql(), boundSql.getParameterMappings(), bindings);
+		synchronized (parsedSqlCache) {
+			parsedSqlCache.put(key, parsedSql);
+		}
+		return boundSql;
+	}
+
+	private BoundSql parse(String sql, Class<?> parameterType, Map<String, Object> bindings, Object parameterObject) {
+		SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+		SqlSource sqlSource = sqlSourceParser.parse(sql, parameterType, bindings);
+		return sqlSource.getBoundSql(parameterObject);
+	}
+
+	private static final class ParsedSqlKey {
+
+		private final String sql;
+		private final Class<?> parameterType;
+		private final int hashCode;
+
+		ParsedSqlKey(String sql, Class<?> parameterType) {
+			this.sql = sql;
+			this.parameterType = parameterType;
+			this.hashCode = 31 * sql.hashCode() + parameterType.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ParsedSqlKey)) {
+				return false;
+			}
+			ParsedSqlKey other = (ParsedSqlKey) obj;
+			return hashCode == other.hashCode && parameterType == other.parameterType && sql.equals(other.sql);
+		}
+	}
+
+	private static final class ParsedSql {
+
+		private final String sql;
+		private final List<ParameterMapping> parameterMappings;
+		/** Properties of the mappings that were bound by the script when parsed, and their types. */
+		private final String[] boundProperties;
+		private final Class<?>[] bindingTypes;
+		/** Whether a bound property is a path, which needs a MetaObject to be resolved. */
+		private final boolean hasBoundPaths;
+
+		ParsedSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings,
+				Map<String, Object> bindings) {
+			this.sql = sql;
+			this.parameterMappings = parameterMappings;
+			MetaObject metaBindings = configuration.newMetaObject(bindings);
+			List<String> properties = new ArrayList<String>();
+			List<Class<?>> types = new ArrayList<Class<?>>();
+			boolean paths = false;
+			for (ParameterMapping parameterMapping : parameterMappings) {
+				String property = parameterMapping.getProperty();
+				Class<?> type = bindingType(property, bindings, metaBindings);
+				if (type != null) {
+					properties.add(property);
+					types.add(type);
+					paths = paths || isPath(property);
+				}
+			}
+			this.boundProperties = properties.toArray(new String[properties.size()]);
+			this.bindingTypes = types.toArray(new Class<?>[types.size()]);
+			this.hasBoundPaths = paths;
+		}
+
+		/**
+		 * Whether the properties bound by the script still have the same types. Properties read from the parameter
+		 * object only depend on the parameter type, which is part of the cache key.
+		 */
+		boolean matches(Configuration configuration, Map<String, Object> bindings) {
+			MetaObject metaBindings = hasBoundPaths ? configuration.newMetaObject(bindings) : null;
+			for (int i = 0; i < boundProperties.length; i++) {
+				if (bindingTypes[i] != bindingType(boundProperties[i], bindings, metaBindings)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// the same answer as MetaObject over the bindings, looked up directly for a plain name
+		private static Class<?> bindingType(String property, Map<String, Object> bindings, MetaObject metaBindings) {
+			if (!isPath(property)) {
+				if (!bindings.containsKey(property)) {
+					return null;
+				}
+				Object value = bindings.get(property);
+				return value == null ? Object.class : value.getClass();
+			}
+			return metaBindings.hasGetter(property) ? metaBindings.getGetterType(property) : null;
+		}
+
+		private static boolean isPath(String property) {
+			return property.indexOf('.') >= 0 || property.indexOf('[') >= 0;
+		}
+	}
+
 }
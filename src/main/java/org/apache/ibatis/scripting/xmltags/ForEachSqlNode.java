@@ -15,10 +15,12 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
-import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.parsing.TokenHandler;
+import org.apache.ibatis.parsing.TokenTemplate;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -35,9 +37,26 @@ public class ForEachSqlNode implements SqlNode {
   private final String separator;
   private final String item;
   private final String index;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
+  private final boolean pad;
+  private final int chunkSize;
+  private final String chunkSeparator;
   private final Configuration configuration;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, false, 0, null);
+  }
+
+  /**
+   * @param pad repeat the last element until the number of iterations reaches the next power of two (or fills the
+   *          last chunk up to one), so collections of different sizes render only a few distinct statements
+   * @param chunkSize when positive, close and reopen the iteration after this many elements, so a long IN list is
+   *          rendered as several lists that stay under the driver's limit
+   * @param chunkSeparator text between two chunks, e.g. {@code OR}
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator,
+      boolean pad, int chunkSize, String chunkSeparator) {
     this.evaluator = new ExpressionEvaluator();
     this.collectionExpression = collectionExpression;
     this.contents = contents;
@@ -46,6 +65,11 @@ public class ForEachSqlNode implements SqlNode {
     this.separator = separator;
     this.index = index;
     this.item = item;
+    this.itemPattern = variablePattern(item);
+    this.indexPattern = variablePattern(index);
+    this.pad = pad;
+    this.chunkSize = chunkSize;
+    this.chunkSeparator = chunkSeparator;
     this.configuration = configuration;
   }
 
@@ -58,49 +82,80 @@ public class ForEachSqlNode implements SqlNode {
     }
     boolean first = true;
     applyOpen(context);
+    // one pair of wrapping contexts serves every iteration
+    PrefixedContext prefixedContext = new PrefixedContext(context);
+    FilteredDynamicContext filteredContext = new FilteredDynamicContext(prefixedContext);
     int i = 0;
+    Object last = null;
     for (Object o : iterable) {
-      DynamicContext oldContext = context;
-      if (first || separator == null) {
-        context = new PrefixedContext(context, "");
-      } else {
-        context = new PrefixedContext(context, separator);
-      }
-      int uniqueNumber = context.getUniqueNumber();
-      // Issue #709 
-      if (o instanceof Map.Entry) {
-        @SuppressWarnings("unchecked") 
-        Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
-        applyIndex(context, mapEntry.getKey(), uniqueNumber);
-        applyItem(context, mapEntry.getValue(), uniqueNumber);
-      } else {
-        applyIndex(context, i, uniqueNumber);
-        applyItem(context, o, uniqueNumber);
-      }
-      contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
-      if (first) {
-        first = !((PrefixedContext) context).isPrefixApplied();
-      }
-      context = oldContext;
+      first = applyIteration(context, prefixedContext, filteredContext, o, i, first);
+      last = o;
       i++;
     }
+    if (pad) {
+      for (int padded = paddedCount(i); i < padded; i++) {
+        first = applyIteration(context, prefixedContext, filteredContext, last, i, first);
+      }
+    }
     applyClose(context);
     context.getBindings().remove(item);
     context.getBindings().remove(index);
     return true;
   }
 
-  private void applyIndex(DynamicContext context, Object o, int i) {
+  private boolean applyIteration(DynamicContext context, PrefixedContext prefixedContext,
+      FilteredDynamicContext filteredContext, Object o, int i, boolean first) {
+    if (chunkSize > 0 && i > 0 && i % chunkSize == 0) {
+      applyClose(context);
+      if (chunkSeparator != null) {
+        context.appendSql(chunkSeparator);
+      }
+      applyOpen(context);
+      first = true;
+    }
+    prefixedContext.reset(first || separator == null ? "" : separator);
+    int uniqueNumber = prefixedContext.getUniqueNumber();
+    String itemizedItem = item == null ? null : itemizeItem(item, uniqueNumber);
+    String itemizedIndex = index == null ? null : itemizeItem(index, uniqueNumber);
+    // Issue #709 
+    if (o instanceof Map.Entry) {
+      @SuppressWarnings("unchecked") 
+      Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
+      applyIndex(prefixedContext, mapEntry.getKey(), itemizedIndex);
+      applyItem(prefixedContext, mapEntry.getValue(), itemizedItem);
+    } else {
+      applyIndex(prefixedContext, i, itemizedIndex);
+      applyItem(prefixedContext, o, itemizedItem);
+    }
+    filteredContext.reset(itemizedItem, itemizedIndex);
+    contents.apply(filteredContext);
+    return first && !prefixedContext.isPrefixApplied();
+  }
+
+  // the next power of two, filling only the last chunk when chunked
+  private int paddedCount(int count) {
+    if (chunkSize > 0) {
+      int full = count - count % chunkSize;
+      return count == full ? count : full + Math.min(chunkSize, nextPowerOfTwo(count - full));
+    }
+    return nextPowerOfTwo(count);
+  }
+
+  private static int nextPowerOfTwo(int count) {
+    return count <= 1 ? count : Integer.highestOneBit(count - 1) << 1;
+  }
+
+  private void applyIndex(DynamicContext context, Object o, String itemizedIndex) {
     if (index != null) {
       context.bind(index, o);
-      context.bind(itemizeItem(index, i), o);
+      context.bind(itemizedIndex, o);
     }
   }
 
-  private void applyItem(DynamicContext context, Object o, int i) {
+  private void applyItem(DynamicContext context, Object o, String itemizedItem) {
     if (item != null) {
       context.bind(item, o);
-      context.bind(itemizeItem(item, i), o);
+      context.bind(itemizedItem, o);
     }
   }
 
@@ -116,22 +171,73 @@ public class ForEachSqlNode implements SqlNode {
     }
   }
 
+  /**
+   * The pattern that finds a variable at the start of a placeholder, or null when the name is a plain identifier and
+   * {@link #replaceVariable} can match it without a regular expression.
+   */
+  private static Pattern variablePattern(String name) {
+    if (name == null) {
+      return null;
+    }
+    boolean plain = name.length() > 0;
+    for (int i = 0; i < name.length() && plain; i++) {
+      char c = name.charAt(i);
+      plain = Character.isLetterOrDigit(c) || c == '_';
+    }
+    return plain ? null : Pattern.compile("^\\s*" + name + "(?![^.,:\\s])");
+  }
+
+  // same as replacing "^\\s*" + name + "(?![^.,:\\s])" with the replacement
+  private static String replaceVariable(String content, String name, Pattern pattern, String replacement) {
+    if (pattern != null) {
+      return pattern.matcher(content).replaceFirst(replacement);
+    }
+    int start = 0;
+    while (start < content.length() && isWhitespace(content.charAt(start))) {
+      start++;
+    }
+    if (!content.startsWith(name, start)) {
+      return content;
+    }
+    int end = start + name.length();
+    if (end < content.length()) {
+      char next = content.charAt(end);
+      if (next != '.' && next != ',' && next != ':' && !isWhitespace(next)) {
+        return content;
+      }
+    }
+    return replacement.concat(content.substring(end));
+  }
+
+  // the characters \s matches
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
   private static String itemizeItem(String item, int i) {
     return new StringBuilder(ITEM_PREFIX).append(item).append("_").append(i).toString();
   }
 
-  private static class FilteredDynamicContext extends DynamicContext {
+  /**
+   * Rewrites the item and index names of the {@code #{}} placeholders in the body to the names bound for the
+   * current iteration. The body usually appends the same few text instances on every iteration, so each one is
+   * split into a template once per render and only its placeholders are rewritten afterwards.
+   */
+  private class FilteredDynamicContext extends DynamicContext implements TokenHandler {
+    private static final int MAX_TEMPLATES = 16;
     private final DynamicContext delegate;
-    private final int index;
-    private final String itemIndex;
-    private final String item;
+    private final Map<String, TokenTemplate> templates = new IdentityHashMap<String, TokenTemplate>();
+    private String itemizedItem;
+    private String itemizedIndex;
 
-    public FilteredDynamicContext(Configuration configuration,DynamicContext delegate, String itemIndex, String item, int i) {
-      super(configuration, null);
+    public FilteredDynamicContext(DynamicContext delegate) {
+      super(delegate);
       this.delegate = delegate;
-      this.index = i;
-      this.itemIndex = itemIndex;
-      this.item = item;
+    }
+
+    void reset(String itemizedItem, String itemizedIndex) {
+      this.itemizedItem = itemizedItem;
+      this.itemizedIndex = itemizedIndex;
     }
 
     @Override
@@ -151,18 +257,26 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      GenericTokenParser parser = new GenericTokenParser("#{", "}", new TokenHandler() {
-        @Override
-        public String handleToken(String content) {
-          String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
-          if (itemIndex != null && newContent.equals(content)) {
-            newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
-          }
-          return new StringBuilder("#{").append(newContent).append("}").toString();
+      TokenTemplate template = templates.get(sql);
+      if (template == null) {
+        template = TokenTemplate.compile("#{", "}", sql);
+        if (templates.size() < MAX_TEMPLATES) {
+          templates.put(sql, template);
         }
-      });
+      }
+      delegate.appendSql(template.apply(this));
+    }
 
-      delegate.appendSql(parser.parse(sql));
+    @Override
+    public String handleToken(String content) {
+      String newContent = content;
+      if (item != null) {
+        newContent = replaceVariable(content, item, itemPattern, itemizedItem);
+      }
+      if (index != null && newContent.equals(content)) {
+        newContent = replaceVariable(content, index, indexPattern, itemizedIndex);
+      }
+      return new StringBuilder(newContent.length() + 3).append("#{").append(newContent).append("}").toString();
     }
 
     @Override
@@ -175,12 +289,15 @@ public class ForEachSqlNode implements SqlNode {
 
   private class PrefixedContext extends DynamicContext {
     private final DynamicContext delegate;
-    private final String prefix;
+    private String prefix;
     private boolean prefixApplied;
 
-    public PrefixedContext(DynamicContext delegate, String prefix) {
-      super(configuration, null);
+    public PrefixedContext(DynamicContext delegate) {
+      super(delegate);
       this.delegate = delegate;
+    }
+
+    void reset(String prefix) {
       this.prefix = prefix;
       this.prefixApplied = false;
     }
@@ -201,13 +318,22 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      if (!prefixApplied && sql != null && sql.trim().length() > 0) {
+      if (!prefixApplied && sql != null && !isBlank(sql)) {
         delegate.appendSql(prefix);
         prefixApplied = true;
       }
       delegate.appendSql(sql);
     }
 
+    private boolean isBlank(String sql) {
+      for (int i = 0; i < sql.length(); i++) {
+        if (sql.charAt(i) > ' ') {
+          return false;
+        }
+      }
+      return true;
+    }
+
     @Override
     public String getSql() {
       return delegate.getSql();
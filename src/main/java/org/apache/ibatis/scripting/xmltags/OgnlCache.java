@@ -24,7 +24,8 @@ import ognl.OgnlException;
 import org.apache.ibatis.builder.BuilderException;
 
 /**
- * Caches OGNL parsed expressions.
+ * Caches OGNL parsed expressions, and the {@link CompiledExpression} evaluators of the ones that fit the
+ * compiled subset.
  *
  * @author Eduardo Macarron
  *
@@ -33,12 +34,28 @@ import org.apache.ibatis.builder.BuilderException;
 public final class OgnlCache {
 
   private static final Map<String, Object> expressionCache = new ConcurrentHashMap<String, Object>();
+  private static final Map<String, Object> compiledExpressionCache = new ConcurrentHashMap<String, Object>();
+  private static final Object NOT_COMPILED = new Object();
 
   private OgnlCache() {
     // Prevent Instantiation of Static Class
   }
 
   public static Object getValue(String expression, Object root) {
+    Object compiled = compiledExpressionCache.get(expression);
+    if (compiled == null) {
+      compiled = compileExpression(expression);
+    }
+    if (compiled != NOT_COMPILED) {
+      try {
+        Object value = ((CompiledExpression) compiled).getValue(root);
+        if (value != CompiledExpression.UNRESOLVED) {
+          return value;
+        }
+      } catch (RuntimeException e) {
+        // let OGNL report the failure the way it always has
+      }
+    }
     try {
       Map<Object, OgnlClassResolver> context = Ognl.createDefaultContext(root, new OgnlClassResolver());
       return Ognl.getValue(parseExpression(expression), context, root);
@@ -47,6 +64,31 @@ public final class OgnlCache {
     }
   }
 
+  /**
+   * The compiled form of an expression, or null when it is outside the compiled subset or does not parse.
+   */
+  static CompiledExpression getCompiledExpression(String expression) {
+    Object compiled = compiledExpressionCache.get(expression);
+    if (compiled == null) {
+      compiled = compileExpression(expression);
+    }
+    return compiled == NOT_COMPILED ? null : (CompiledExpression) compiled;
+  }
+
+  private static Object compileExpression(String expression) {
+    Object compiled;
+    try {
+      compiled = CompiledExpression.compile(parseExpression(expression));
+    } catch (OgnlException e) {
+      compiled = null;
+    }
+    if (compiled == null) {
+      compiled = NOT_COMPILED;
+    }
+    compiledExpressionCache.put(expression, compiled);
+    return compiled;
+  }
+
   private static Object parseExpression(String expression) throws OgnlException {
     Object node = expressionCache.get(expression);
     if (node == null) {
@@ -0,0 +1,31 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 由{@link SqlSourceCompiler}在构建期为一个mapper生成的SqlSource集合
+ */
+public interface PrecompiledSqlSources {
+
+	/**
+	 * 获取语句对应的预编译SqlSource,语句不存在或者内容指纹与生成时不一致时返回null
+	 */
+	SqlSource getSqlSource(Configuration configuration, String id, String databaseId, String fingerprint);
+
+}
@@ -0,0 +1,438 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.parsing.TokenTemplate;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * 构建期将mapper XML中的动态语句编译成Java源码
+ * <p>
+ * 每个mapper生成一个实现{@link PrecompiledSqlSources}的类(命名空间加上SqlSources后缀),
+ * if/choose等条件逻辑直接生成为Java代码,trim/where/set/foreach/bind仍复用对应的SqlNode。
+ * 运行时{@link XMLLanguageDriver}按语句内容的指纹使用生成的类,XML被修改而未重新生成时自动退回解析XML。
+ * 包含include、使用lang属性或者不含动态元素的语句不会被编译。
+ * <p>
+ * 用法: {@code java org.apache.ibatis.scripting.xmltags.SqlSourceCompiler <输出目录> <mapper.xml>...}
+ */
+public class SqlSourceCompiler {
+
+	public static final String CLASS_NAME_SUFFIX = "SqlSources";
+
+	private static final String[] STATEMENTS = { "select", "insert", "update", "delete" };
+
+	// 关键字及字面量不能作为包名或类名
+	private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList("abstract", "assert", "boolean",
+			"break", "byte", "case", "catch", "char", "class", "const", "continue", "default", "do", "double", "else",
+			"enum", "extends", "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof",
+			"int", "interface", "long", "native", "new", "package", "private", "protected", "public", "return", "short",
+			"static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try",
+			"void", "volatile", "while", "true", "false", "null", "_"));
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: SqlSourceCompiler <output directory> <mapper xml>...");
+			System.exit(1);
+		}
+		File outputDirectory = new File(args[0]);
+		SqlSourceCompiler compiler = new SqlSourceCompiler();
+		for (int i = 1; i < args.length; i++) {
+			InputStream in = new FileInputStream(args[i]);
+			String namespace;
+			String source;
+			try {
+				XPathParser parser = new XPathParser(in, true, null, new XMLMapperEntityResolver());
+				XNode mapper = parser.evalNode("/mapper");
+				namespace = mapper.getStringAttribute("namespace");
+				source = compiler.compile(mapper);
+			} finally {
+				in.close();
+			}
+			if (source != null) {
+				File file = new File(outputDirectory, getClassName(namespace).replace('.', File.separatorChar) + ".java");
+				file.getParentFile().mkdirs();
+				Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+				try {
+					writer.write(source);
+				} finally {
+					writer.close();
+				}
+			}
+		}
+	}
+
+	public static String getClassName(String namespace) {
+		return namespace + CLASS_NAME_SUFFIX;
+	}
+
+	/**
+	 * 语句内容的指纹,由子节点的名称、属性以及文本计算得出(忽略语句本身的属性及selectKey)
+	 */
+	public static String fingerprint(XNode statement) {
+		StringBuilder canonical = new StringBuilder();
+		appendCanonical(statement, canonical);
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < canonical.length(); i++) {
+			hash ^= canonical.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return Long.toHexString(hash);
+	}
+
+	private static void appendCanonical(XNode node, StringBuilder canonical) {
+		NodeList children = node.getNode().getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			XNode child = node.newXNode(children.item(i));
+			short type = child.getNode().getNodeType();
+			if (type == Node.CDATA_SECTION_NODE || type == Node.TEXT_NODE) {
+				canonical.append('"').append(child.getStringBody("").replace("\"", "\"\"")).append('"');
+			} else if (type == Node.ELEMENT_NODE && !"selectKey".equals(child.getName())) {
+				canonical.append('<').append(child.getName());
+				for (Map.Entry<String, String> attribute : attributes(child).entrySet()) {
+					canonical.append(' ').append(attribute.getKey()).append("=\"")
+							.append(attribute.getValue().replace("\"", "\"\"")).append('"');
+				}
+				canonical.append('>');
+				appendCanonical(child, canonical);
+				canonical.append("</>");
+			}
+		}
+	}
+
+	private static Map<String, String> attributes(XNode node) {
+		Map<String, String> attributes = new TreeMap<String, String>();
+		NamedNodeMap map = node.getNode().getAttributes();
+		for (int i = 0; i < map.getLength(); i++) {
+			String name = map.item(i).getNodeName();
+			attributes.put(name, node.getStringAttribute(name));
+		}
+		return attributes;
+	}
+
+	/**
+	 * 生成给定mapper对应的Java源码,没有可以编译的语句或者命名空间不是合法的类名时返回null
+	 */
+	public String compile(XNode mapper) {
+		String namespace = mapper.getStringAttribute("namespace");
+		if (namespace == null || !isQualifiedName(namespace)) {
+			return null;
+		}
+		List<String> conditions = new ArrayList<String>();
+		List<String> methods = new ArrayList<String>();
+		for (XNode statement : mapper.getChildren()) {
+			if (!isStatement(statement.getName()) || statement.getStringAttribute("lang") != null) {
+				continue;
+			}
+			String method = compileStatement(statement, "sqlSource" + methods.size());
+			if (method != null) {
+				String databaseId = statement.getStringAttribute("databaseId");
+				conditions.add("\"" + escape(statement.getStringAttribute("id")) + "\".equals(id) && "
+						+ (databaseId == null ? "databaseId == null" : "\"" + escape(databaseId) + "\".equals(databaseId)")
+						+ " && \"" + fingerprint(statement) + "\".equals(fingerprint)");
+				methods.add(method);
+			}
+		}
+		if (methods.isEmpty()) {
+			return null;
+		}
+		String className = getClassName(namespace);
+		int dot = className.lastIndexOf('.');
+		StringBuilder source = new StringBuilder();
+		source.append("// Generated by ").append(SqlSourceCompiler.class.getName()).append(". Do not edit.\n");
+		if (dot > 0) {
+			source.append("package ").append(className.substring(0, dot)).append(";\n\n");
+		}
+		source.append("import org.apache.ibatis.mapping.SqlSource;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.DynamicContext;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.PrecompiledSqlSources;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.SetSqlNode;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.SqlNode;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.TextSqlNode;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.TrimSqlNode;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.VarDeclSqlNode;\n");
+		source.append("import org.apache.ibatis.scripting.xmltags.WhereSqlNode;\n");
+		source.append("import org.apache.ibatis.session.Configuration;\n\n");
+		source.append("public final class ").append(className.substring(dot + 1)).append(" implements PrecompiledSqlSources {\n\n");
+		source.append("\tprivate static final ExpressionEvaluator EVALUATOR = new ExpressionEvaluator();\n\n");
+		source.append("\t@Override\n");
+		source.append("\tpublic SqlSource getSqlSource(Configuration configuration, String id, String databaseId, String fingerprint) {\n");
+		for (int i = 0; i < conditions.size(); i++) {
+			source.append("\t\tif (").append(conditions.get(i)).append(") {\n");
+			source.append("\t\t\treturn sqlSource").append(i).append("(configuration);\n");
+			source.append("\t\t}\n");
+		}
+		source.append("\t\treturn null;\n");
+		source.append("\t}\n");
+		for (String method : methods) {
+			source.append('\n').append(method);
+		}
+		source.append("\n}\n");
+		return source.toString();
+	}
+
+	private String compileStatement(XNode statement, String methodName) {
+		if (!hasElements(statement)) {
+			// 不含动态元素的语句在运行时使用RawSqlSource
+			return null;
+		}
+		StringBuilder declarations = new StringBuilder();
+		String body;
+		try {
+			body = compileContents(statement, declarations, new int[1], "\t\t\t\t");
+		} catch (NotCompilableException e) {
+			return null;
+		}
+		StringBuilder method = new StringBuilder();
+		method.append("\tprivate static SqlSource ").append(methodName).append("(final Configuration configuration) {\n");
+		method.append(declarations);
+		method.append("\t\treturn new DynamicSqlSource(configuration, ").append(anonymousNode(body, "\t\t")).append(");\n");
+		method.append("\t}\n");
+		return method.toString();
+	}
+
+	/**
+	 * 生成将子节点追加到DynamicContext的Java语句,需要复用的SqlNode以局部变量的形式声明在declarations中
+	 */
+	private String compileContents(XNode node, StringBuilder declarations, int[] counter, String indent) {
+		StringBuilder code = new StringBuilder();
+		NodeList children = node.getNode().getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			XNode child = node.newXNode(children.item(i));
+			short type = child.getNode().getNodeType();
+			if (type == Node.CDATA_SECTION_NODE || type == Node.TEXT_NODE) {
+				String data = child.getStringBody("");
+				if (TokenTemplate.compile("${", "}", data).hasTokens()) {
+					String name = declare(declarations, counter, "new TextSqlNode(" + literal(data) + ", configuration.getSubstitutionFilter())");
+					code.append(indent).append(name).append(".apply(context);\n");
+				} else {
+					code.append(indent).append("context.appendSql(").append(literal(data)).append(");\n");
+				}
+			} else if (type == Node.ELEMENT_NODE) {
+				compileElement(child, code, declarations, counter, indent);
+			}
+		}
+		return code.toString();
+	}
+
+	private void compileElement(XNode element, StringBuilder code, StringBuilder declarations, int[] counter, String indent) {
+		String name = element.getName();
+		if ("if".equals(name) || "when".equals(name)) {
+			code.append(indent).append("if (").append(test(element)).append(") {\n");
+			code.append(compileContents(element, declarations, counter, indent + "\t"));
+			code.append(indent).append("}\n");
+		} else if ("otherwise".equals(name)) {
+			code.append(compileContents(element, declarations, counter, indent));
+		} else if ("choose".equals(name)) {
+			compileChoose(element, code, declarations, counter, indent);
+		} else if ("trim".equals(name)) {
+			String contents = anonymousNode(compileContents(element, declarations, counter, "\t\t\t\t"), "\t\t");
+			String node = declare(declarations, counter, "new TrimSqlNode(configuration, " + contents + ", "
+					+ literal(element.getStringAttribute("prefix")) + ", " + literal(element.getStringAttribute("prefixOverrides")) + ", "
+					+ literal(element.getStringAttribute("suffix")) + ", " + literal(element.getStringAttribute("suffixOverrides")) + ")");
+			code.append(indent).append(node).append(".apply(context);\n");
+		} else if ("where".equals(name) || "set".equals(name)) {
+			String contents = anonymousNode(compileContents(element, declarations, counter, "\t\t\t\t"), "\t\t");
+			String type = "where".equals(name) ? "WhereSqlNode" : "SetSqlNode";
+			String node = declare(declarations, counter, "new " + type + "(configuration, " + contents + ")");
+			code.append(indent).append(node).append(".apply(context);\n");
+		} else if ("foreach".equals(name)) {
+			int chunkSize;
+			try {
+				chunkSize = XMLScriptBuilder.getChunkSize(element);
+			} catch (BuilderException e) {
+				// 交给XMLScriptBuilder报错
+				throw new NotCompilableException();
+			}
+			String contents = anonymousNode(compileContents(element, declarations, counter, "\t\t\t\t"), "\t\t");
+			String node = declare(declarations, counter, "new ForEachSqlNode(configuration, " + contents + ", "
+					+ literal(element.getStringAttribute("collection")) + ", " + literal(element.getStringAttribute("index")) + ", "
+					+ literal(element.getStringAttribute("item")) + ", " + literal(element.getStringAttribute("open")) + ", "
+					+ literal(element.getStringAttribute("close")) + ", " + literal(element.getStringAttribute("separator")) + ", "
+					+ element.getBooleanAttribute("pad", false) + ", " + chunkSize + ", "
+					+ literal(element.getStringAttribute("chunkSeparator")) + ")");
+			code.append(indent).append(node).append(".apply(context);\n");
+		} else if ("bind".equals(name)) {
+			String node = declare(declarations, counter, "new VarDeclSqlNode(" + literal(element.getStringAttribute("name")) + ", "
+					+ literal(element.getStringAttribute("value")) + ")");
+			code.append(indent).append(node).append(".apply(context);\n");
+		} else if (!"selectKey".equals(name)) {
+			// include需要在运行时解析,未知元素交给XMLScriptBuilder报错
+			throw new NotCompilableException();
+		}
+	}
+
+	private void compileChoose(XNode choose, StringBuilder code, StringBuilder declarations, int[] counter, String indent) {
+		List<XNode> whens = new ArrayList<XNode>();
+		XNode otherwise = null;
+		for (XNode child : choose.getChildren()) {
+			String name = child.getName();
+			if ("when".equals(name) || "if".equals(name)) {
+				whens.add(child);
+			} else if ("otherwise".equals(name)) {
+				if (otherwise != null) {
+					// 交给XMLScriptBuilder报错
+					throw new NotCompilableException();
+				}
+				otherwise = child;
+			}
+		}
+		for (int i = 0; i < whens.size(); i++) {
+			code.append(i == 0 ? indent + "if" : " else if").append(" (").append(test(whens.get(i))).append(") {\n");
+			code.append(compileContents(whens.get(i), declarations, counter, indent + "\t"));
+			code.append(indent).append("}");
+		}
+		if (otherwise != null) {
+			if (whens.isEmpty()) {
+				code.append(compileContents(otherwise, declarations, counter, indent));
+				return;
+			}
+			code.append(" else {\n");
+			code.append(compileContents(otherwise, declarations, counter, indent + "\t"));
+			code.append(indent).append("}");
+		}
+		if (!whens.isEmpty()) {
+			code.append('\n');
+		}
+	}
+
+	private static String test(XNode element) {
+		return "EVALUATOR.evaluateBoolean(" + literal(element.getStringAttribute("test")) + ", context.getBindings())";
+	}
+
+	private static String declare(StringBuilder declarations, int[] counter, String expression) {
+		String name = "node" + counter[0]++;
+		declarations.append("\t\tfinal SqlNode ").append(name).append(" = ").append(expression).append(";\n");
+		return name;
+	}
+
+	private static String anonymousNode(String body, String indent) {
+		return "new SqlNode() {\n"
+				+ indent + "\t@Override\n"
+				+ indent + "\tpublic boolean apply(DynamicContext context) {\n"
+				+ body
+				+ indent + "\t\treturn true;\n"
+				+ indent + "\t}\n"
+				+ indent + "}";
+	}
+
+	private static boolean hasElements(XNode node) {
+		NodeList children = node.getNode().getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			Node child = children.item(i);
+			if (child.getNodeType() == Node.ELEMENT_NODE && !"selectKey".equals(child.getNodeName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isStatement(String name) {
+		for (String statement : STATEMENTS) {
+			if (statement.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isQualifiedName(String name) {
+		for (String part : name.split("\\.", -1)) {
+			if (part.isEmpty() || KEYWORDS.contains(part) || !Character.isJavaIdentifierStart(part.charAt(0))) {
+				return false;
+			}
+			for (int i = 1; i < part.length(); i++) {
+				if (!Character.isJavaIdentifierPart(part.charAt(i))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static String literal(String value) {
+		return value == null ? "null" : "\"" + escape(value) + "\"";
+	}
+
+	private static String escape(String value) {
+		StringBuilder escaped = new StringBuilder(value.length() + 16);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				escaped.append("\\\\");
+				break;
+			case '"':
+				escaped.append("\\\"");
+				break;
+			case '\n':
+				escaped.append("\\n");
+				break;
+			case '\r':
+				escaped.append("\\r");
+				break;
+			case '\t':
+				escaped.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c > 0x7e) {
+					escaped.append(String.format("\\u%04x", (int) c));
+				} else {
+					escaped.append(c);
+				}
+			}
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * 语句包含无法在构建期编译的内容,该语句在运行时仍解析XML
+	 */
+	private static final class NotCompilableException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			// 只用于结束当前语句的编译,不需要堆栈
+			return this;
+		}
+	}
+
+}
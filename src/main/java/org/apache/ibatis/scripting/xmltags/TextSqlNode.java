@@ -2,8 +2,8 @@ package org.apache.ibatis.scripting.xmltags;
 
 import java.util.regex.Pattern;
 
-import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.parsing.TokenHandler;
+import org.apache.ibatis.parsing.TokenTemplate;
 import org.apache.ibatis.scripting.ScriptingException;
 import org.apache.ibatis.type.SimpleTypeRegistry;
 
@@ -12,34 +12,46 @@ import org.apache.ibatis.type.SimpleTypeRegistry;
  */
 public class TextSqlNode implements SqlNode {
 	
-	private final String text;
 	private final Pattern injectionFilter;
+	/**
+	 * 文本按${}拆分后的字面量及表达式片段
+	 */
+	private final TokenTemplate template;
 
 	public TextSqlNode(String text) {
 		this(text, null);
 	}
 
 	public TextSqlNode(String text, Pattern injectionFilter) {
-		this.text = text;
 		this.injectionFilter = injectionFilter;
+		this.template = TokenTemplate.compile("${", "}", text);
 	}
 
 	public boolean isDynamic() {
-		DynamicCheckerTokenParser checker = new DynamicCheckerTokenParser();
-		GenericTokenParser parser = createParser(checker);
-		parser.parse(text);
-		return checker.isDynamic();
+		return template.hasTokens();
 	}
 
 	@Override
 	public boolean apply(DynamicContext context) {
-		GenericTokenParser parser = createParser(new BindingTokenParser(context, injectionFilter));
-		context.appendSql(parser.parse(text));
+		if (!template.hasTokens()) {
+			context.appendSql(template.getLiteral(0));
+			return true;
+		}
+		bindValue(context);
+		context.appendSql(template.apply(new BindingTokenParser(context, injectionFilter)));
 		return true;
 	}
 
-	private GenericTokenParser createParser(TokenHandler handler) {
-		return new GenericTokenParser("${", "}", handler);
+	/**
+	 * 简单类型的参数可以通过value来引用
+	 */
+	private void bindValue(DynamicContext context) {
+		Object parameter = context.getBindings().get("_parameter");
+		if (parameter == null) {
+			context.getBindings().put("value", null);
+		} else if (SimpleTypeRegistry.isSimpleType(parameter.getClass())) {
+			context.getBindings().put("value", parameter);
+		}
 	}
 
 	private static class BindingTokenParser implements TokenHandler {
@@ -54,12 +66,6 @@ public class TextSqlNode implements SqlNode {
 
 		@Override
 		public String handleToken(String content) {
-			Object parameter = context.getBindings().get("_parameter");
-			if (parameter == null) {
-				context.getBindings().put("value", null);
-			} else if (SimpleTypeRegistry.isSimpleType(parameter.getClass())) {
-				context.getBindings().put("value", parameter);
-			}
 			Object value = OgnlCache.getValue(content, context.getBindings());
 			String srtValue = (value == null ? "" : String.valueOf(value)); // issue #274 return "" instead of "null"
 			checkInjection(srtValue);
@@ -73,23 +79,4 @@ public class TextSqlNode implements SqlNode {
 		}
 	}
 
-	private static class DynamicCheckerTokenParser implements TokenHandler {
-
-		private boolean isDynamic;
-
-		public DynamicCheckerTokenParser() {
-			// Prevent Synthetic Access
-		}
-
-		public boolean isDynamic() {
-			return isDynamic;
-		}
-
-		@Override
-		public String handleToken(String content) {
-			this.isDynamic = true;
-			return null;
-		}
-	}
-
-}
\ No newline at end of file
+}
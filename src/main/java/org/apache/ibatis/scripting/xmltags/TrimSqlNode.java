@@ -76,7 +76,7 @@ public class TrimSqlNode implements SqlNode {
     private StringBuilder sqlBuffer;
 
     public FilteredDynamicContext(DynamicContext delegate) {
-      super(configuration, null);
+      super(delegate);
       this.delegate = delegate;
       this.prefixApplied = false;
       this.suffixApplied = false;
@@ -84,11 +84,12 @@ public class TrimSqlNode implements SqlNode {
     }
 
     public void applyAll() {
-      sqlBuffer = new StringBuilder(sqlBuffer.toString().trim());
-      String trimmedUppercaseSql = sqlBuffer.toString().toUpperCase(Locale.ENGLISH);
-      if (trimmedUppercaseSql.length() > 0) {
-        applyPrefix(sqlBuffer, trimmedUppercaseSql);
-        applySuffix(sqlBuffer, trimmedUppercaseSql);
+      trim(sqlBuffer);
+      if (sqlBuffer.length() > 0) {
+        // both overrides are matched against the trimmed contents before either is applied
+        String suffixToRemove = findSuffixToRemove(sqlBuffer);
+        applyPrefix(sqlBuffer);
+        applySuffix(sqlBuffer, suffixToRemove);
       }
       delegate.appendSql(sqlBuffer.toString());
     }
@@ -118,12 +119,12 @@ public class TrimSqlNode implements SqlNode {
       return delegate.getSql();
     }
 
-    private void applyPrefix(StringBuilder sql, String trimmedUppercaseSql) {
+    private void applyPrefix(StringBuilder sql) {
       if (!prefixApplied) {
         prefixApplied = true;
         if (prefixesToOverride != null) {
           for (String toRemove : prefixesToOverride) {
-            if (trimmedUppercaseSql.startsWith(toRemove)) {
+            if (startsWithIgnoreCase(sql, toRemove)) {
               sql.delete(0, toRemove.trim().length());
               break;
             }
@@ -136,18 +137,24 @@ public class TrimSqlNode implements SqlNode {
       }
     }
 
-    private void applySuffix(StringBuilder sql, String trimmedUppercaseSql) {
+    private String findSuffixToRemove(StringBuilder sql) {
+      if (!suffixApplied && suffixesToOverride != null) {
+        for (String toRemove : suffixesToOverride) {
+          if (endsWithIgnoreCase(sql, toRemove) || endsWithIgnoreCase(sql, toRemove.trim())) {
+            return toRemove;
+          }
+        }
+      }
+      return null;
+    }
+
+    private void applySuffix(StringBuilder sql, String toRemove) {
       if (!suffixApplied) {
         suffixApplied = true;
-        if (suffixesToOverride != null) {
-          for (String toRemove : suffixesToOverride) {
-            if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
-              int start = sql.length() - toRemove.trim().length();
-              int end = sql.length();
-              sql.delete(start, end);
-              break;
-            }
-          }
+        if (toRemove != null) {
+          int start = sql.length() - toRemove.trim().length();
+          int end = sql.length();
+          sql.delete(start, end);
         }
         if (suffix != null) {
           sql.append(" ");
@@ -158,4 +165,38 @@ public class TrimSqlNode implements SqlNode {
 
   }
 
+  private static void trim(StringBuilder sql) {
+    int end = sql.length();
+    while (end > 0 && sql.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    sql.setLength(end);
+    int start = 0;
+    while (start < end && sql.charAt(start) <= ' ') {
+      start++;
+    }
+    sql.delete(0, start);
+  }
+
+  // the overrides are upper case already
+  private static boolean startsWithIgnoreCase(StringBuilder sql, String upperCase) {
+    return regionMatchesIgnoreCase(sql, 0, upperCase);
+  }
+
+  private static boolean endsWithIgnoreCase(StringBuilder sql, String upperCase) {
+    return regionMatchesIgnoreCase(sql, sql.length() - upperCase.length(), upperCase);
+  }
+
+  private static boolean regionMatchesIgnoreCase(StringBuilder sql, int offset, String upperCase) {
+    if (offset < 0 || offset + upperCase.length() > sql.length()) {
+      return false;
+    }
+    for (int i = 0; i < upperCase.length(); i++) {
+      if (Character.toUpperCase(sql.charAt(offset + i)) != upperCase.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
 }
@@ -1,7 +1,12 @@
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlSource;
@@ -18,6 +23,10 @@ import org.apache.ibatis.session.Configuration;
  */
 public class XMLLanguageDriver implements LanguageDriver {
 
+	//按命名空间缓存由SqlSourceCompiler生成的类,不存在时记录为NOT_PRECOMPILED
+	private static final Object NOT_PRECOMPILED = new Object();
+	private final ConcurrentMap<String, Object> precompiledSqlSources = new ConcurrentHashMap<String, Object>();
+
 	@Override
 	public ParameterHandler createParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
 		return new DefaultParameterHandler(mappedStatement, parameterObject, boundSql);
@@ -25,6 +34,10 @@ public class XMLLanguageDriver implements LanguageDriver {
 
 	@Override
 	public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+		SqlSource precompiled = getPrecompiledSqlSource(configuration, script);
+		if (precompiled != null) {
+			return precompiled;
+		}
 		XMLScriptBuilder builder = new XMLScriptBuilder(configuration, script, parameterType);
 		return builder.parseScriptNode();
 	}
@@ -39,7 +52,7 @@ public class XMLLanguageDriver implements LanguageDriver {
 			// issue #127
 			script = PropertyParser.parse(script, configuration.getVariables());
 			//
-			TextSqlNode textSqlNode = new TextSqlNode(script);
+			TextSqlNode textSqlNode = new TextSqlNode(script, configuration.getSubstitutionFilter());
 			//
 			if (textSqlNode.isDynamic()) {
 				//
@@ -51,4 +64,46 @@ public class XMLLanguageDriver implements LanguageDriver {
 		}
 	}
 
+	/**
+	 * 查找构建期生成的SqlSource,只处理mapper中的select|insert|update|delete语句
+	 */
+	private SqlSource getPrecompiledSqlSource(Configuration configuration, XNode script) {
+		String name = script.getName();
+		if (!"select".equals(name) && !"insert".equals(name) && !"update".equals(name) && !"delete".equals(name)) {
+			return null;
+		}
+		XNode mapper = script.getParent();
+		String namespace = mapper == null ? null : mapper.getStringAttribute("namespace");
+		if (namespace == null) {
+			return null;
+		}
+		Object sqlSources = precompiledSqlSources.get(namespace);
+		if (sqlSources == null) {
+			sqlSources = loadPrecompiledSqlSources(namespace);
+			precompiledSqlSources.put(namespace, sqlSources);
+		}
+		if (sqlSources == NOT_PRECOMPILED) {
+			return null;
+		}
+		return ((PrecompiledSqlSources) sqlSources).getSqlSource(configuration, script.getStringAttribute("id"),
+				script.getStringAttribute("databaseId"), SqlSourceCompiler.fingerprint(script));
+	}
+
+	private Object loadPrecompiledSqlSources(String namespace) {
+		Class<?> type;
+		try {
+			type = Resources.classForName(SqlSourceCompiler.getClassName(namespace));
+		} catch (ClassNotFoundException e) {
+			return NOT_PRECOMPILED;
+		}
+		if (!PrecompiledSqlSources.class.isAssignableFrom(type)) {
+			return NOT_PRECOMPILED;
+		}
+		try {
+			return type.newInstance();
+		} catch (Exception e) {
+			throw new BuilderException("Error instantiating precompiled SQL sources " + type.getName() + ". Cause: " + e, e);
+		}
+	}
+
 }
@@ -21,6 +21,7 @@ public class XMLScriptBuilder extends BaseBuilder {
 
 	private final XNode context;
 	private boolean isDynamic;
+	private String fragmentSeparator = " ";
 	private final Class<?> parameterType;
 	private final Map<String, NodeHandler> nodeHandlerMap = new HashMap<String, NodeHandler>();
 
@@ -59,18 +60,22 @@ public class XMLScriptBuilder extends BaseBuilder {
 	}
 
 	protected MixedSqlNode parseDynamicTags(XNode node) {
+		return new MixedSqlNode(parseDynamicContents(node));
+	}
+
+	private List<SqlNode> parseDynamicContents(XNode node) {
 		List<SqlNode> contents = new ArrayList<SqlNode>();
 		NodeList children = node.getNode().getChildNodes();
 		for (int i = 0; i < children.getLength(); i++) {
 			XNode child = node.newXNode(children.item(i));
 			if (child.getNode().getNodeType() == Node.CDATA_SECTION_NODE || child.getNode().getNodeType() == Node.TEXT_NODE) {
 				String data = child.getStringBody("");
-				TextSqlNode textSqlNode = new TextSqlNode(data);
+				TextSqlNode textSqlNode = new TextSqlNode(data, configuration.getSubstitutionFilter());
 				if (textSqlNode.isDynamic()) {
 					contents.add(textSqlNode);
 					isDynamic = true;
 				} else {
-					contents.add(new StaticTextSqlNode(data));
+					addStaticText(contents, data);
 				}
 			} else if (child.getNode().getNodeType() == Node.ELEMENT_NODE) { // issue #628
 				String nodeName = child.getNode().getNodeName();
@@ -82,7 +87,93 @@ public class XMLScriptBuilder extends BaseBuilder {
 				isDynamic = true;
 			}
 		}
-		return new MixedSqlNode(contents);
+		return contents;
+	}
+
+	/**
+	 * Appends static text, merged into the previous node when that one is static too. Each fragment is appended
+	 * with a trailing space except inside trim, where fragments are concatenated as they are; inside foreach the
+	 * first non-blank fragment triggers the separator, so fragments there are kept apart.
+	 */
+	private void addStaticText(List<SqlNode> contents, String text) {
+		int last = contents.size() - 1;
+		if (fragmentSeparator != null && last >= 0 && contents.get(last) instanceof StaticTextSqlNode) {
+			String previous = ((StaticTextSqlNode) contents.get(last)).getText();
+			contents.set(last, new StaticTextSqlNode(previous + fragmentSeparator + text));
+		} else {
+			contents.add(new StaticTextSqlNode(text));
+		}
+	}
+
+	private void addAll(List<SqlNode> contents, List<SqlNode> nodes) {
+		for (SqlNode node : nodes) {
+			if (node instanceof StaticTextSqlNode) {
+				addStaticText(contents, ((StaticTextSqlNode) node).getText());
+			} else {
+				contents.add(node);
+			}
+		}
+	}
+
+	private List<SqlNode> parseDynamicContents(XNode node, String separator) {
+		String parentSeparator = fragmentSeparator;
+		fragmentSeparator = separator;
+		try {
+			return parseDynamicContents(node);
+		} finally {
+			fragmentSeparator = parentSeparator;
+		}
+	}
+
+	private static boolean isStatic(List<SqlNode> contents) {
+		for (SqlNode node : contents) {
+			if (!(node instanceof StaticTextSqlNode)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds a trim, where or set node, rendered once here when everything inside it is static.
+	 */
+	private void addTrim(List<SqlNode> targetContents, List<SqlNode> contents, TrimSqlNode trim) {
+		if (isStatic(contents)) {
+			final List<String> fragments = new ArrayList<String>(1);
+			trim.apply(new DynamicContext(configuration, null) {
+				@Override
+				public void appendSql(String sql) {
+					fragments.add(sql);
+				}
+			});
+			for (String fragment : fragments) {
+				addStaticText(targetContents, fragment);
+			}
+		} else {
+			targetContents.add(trim);
+		}
+	}
+
+	/**
+	 * Evaluates a test at build time when it only depends on {@code _databaseId} and literals, which are known once
+	 * the configuration is loaded.
+	 *
+	 * @return the result of the test, or null when it has to be evaluated for each call
+	 */
+	private Boolean evaluateConstantTest(String test) {
+		if (test == null) {
+			return null;
+		}
+		CompiledExpression expression = OgnlCache.getCompiledExpression(test);
+		if (expression == null || !expression.dependsOnlyOn(DynamicContext.DATABASE_ID_KEY)) {
+			return null;
+		}
+		try {
+			return new ExpressionEvaluator().evaluateBoolean(test, new DynamicContext(configuration, null).getBindings());
+		} catch (RuntimeException e) {
+			// leave the failure to the first call, as before
+			return null;
+		}
 	}
 
 	private interface NodeHandler {
@@ -110,13 +201,13 @@ public class XMLScriptBuilder extends BaseBuilder {
 
 		@Override
 		public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-			MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
+			List<SqlNode> contents = parseDynamicContents(nodeToHandle, "");
 			String prefix = nodeToHandle.getStringAttribute("prefix");
 			String prefixOverrides = nodeToHandle.getStringAttribute("prefixOverrides");
 			String suffix = nodeToHandle.getStringAttribute("suffix");
 			String suffixOverrides = nodeToHandle.getStringAttribute("suffixOverrides");
-			TrimSqlNode trim = new TrimSqlNode(configuration, mixedSqlNode, prefix, prefixOverrides, suffix, suffixOverrides);
-			targetContents.add(trim);
+			TrimSqlNode trim = new TrimSqlNode(configuration, new MixedSqlNode(contents), prefix, prefixOverrides, suffix, suffixOverrides);
+			addTrim(targetContents, contents, trim);
 		}
 	}
 
@@ -127,9 +218,9 @@ public class XMLScriptBuilder extends BaseBuilder {
 
 		@Override
 		public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-			MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
-			WhereSqlNode where = new WhereSqlNode(configuration, mixedSqlNode);
-			targetContents.add(where);
+			List<SqlNode> contents = parseDynamicContents(nodeToHandle, "");
+			WhereSqlNode where = new WhereSqlNode(configuration, new MixedSqlNode(contents));
+			addTrim(targetContents, contents, where);
 		}
 	}
 
@@ -140,9 +231,9 @@ public class XMLScriptBuilder extends BaseBuilder {
 
 		@Override
 		public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-			MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
-			SetSqlNode set = new SetSqlNode(configuration, mixedSqlNode);
-			targetContents.add(set);
+			List<SqlNode> contents = parseDynamicContents(nodeToHandle, "");
+			SetSqlNode set = new SetSqlNode(configuration, new MixedSqlNode(contents));
+			addTrim(targetContents, contents, set);
 		}
 	}
 
@@ -153,18 +244,39 @@ public class XMLScriptBuilder extends BaseBuilder {
 
 		@Override
 		public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-			MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
+			MixedSqlNode mixedSqlNode = new MixedSqlNode(parseDynamicContents(nodeToHandle, null));
 			String collection = nodeToHandle.getStringAttribute("collection");
 			String item = nodeToHandle.getStringAttribute("item");
 			String index = nodeToHandle.getStringAttribute("index");
 			String open = nodeToHandle.getStringAttribute("open");
 			String close = nodeToHandle.getStringAttribute("close");
 			String separator = nodeToHandle.getStringAttribute("separator");
-			ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator);
+			boolean pad = nodeToHandle.getBooleanAttribute("pad", false);
+			int chunkSize = getChunkSize(nodeToHandle);
+			String chunkSeparator = nodeToHandle.getStringAttribute("chunkSeparator");
+			ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator,
+					pad, chunkSize, chunkSeparator);
 			targetContents.add(forEachSqlNode);
 		}
 	}
 
+	/**
+	 * 读取foreach的chunkSize,分块时每一块都需要open和close来分隔,否则相邻两块的元素之间缺少分隔符
+	 */
+	static int getChunkSize(XNode foreach) {
+		Integer chunkSize = foreach.getIntAttribute("chunkSize");
+		if (chunkSize == null) {
+			return 0;
+		}
+		if (chunkSize <= 0) {
+			throw new BuilderException("The chunkSize of a foreach element must be positive, but was " + chunkSize + ".");
+		}
+		if (foreach.getStringAttribute("open") == null || foreach.getStringAttribute("close") == null) {
+			throw new BuilderException("A foreach element with a chunkSize requires both open and close.");
+		}
+		return chunkSize;
+	}
+
 	private class IfHandler implements NodeHandler {
 		public IfHandler() {
 			// Prevent Synthetic Access
@@ -172,10 +284,14 @@ public class XMLScriptBuilder extends BaseBuilder {
 
 		@Override
 		public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-			MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
+			List<SqlNode> contents = parseDynamicContents(nodeToHandle);
 			String test = nodeToHandle.getStringAttribute("test");
-			IfSqlNode ifSqlNode = new IfSqlNode(mixedSqlNode, test);
-			targetContents.add(ifSqlNode);
+			Boolean constant = evaluateConstantTest(test);
+			if (constant == null) {
+				targetContents.add(new IfSqlNode(new MixedSqlNode(contents), test));
+			} else if (constant) {
+				addAll(targetContents, contents);
+			}
 		}
 	}
 
@@ -199,34 +315,41 @@ public class XMLScriptBuilder extends BaseBuilder {
 		@Override
 		public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
 			List<SqlNode> whenSqlNodes = new ArrayList<SqlNode>();
-			List<SqlNode> otherwiseSqlNodes = new ArrayList<SqlNode>();
-			handleWhenOtherwiseNodes(nodeToHandle, whenSqlNodes, otherwiseSqlNodes);
-			SqlNode defaultSqlNode = getDefaultSqlNode(otherwiseSqlNodes);
-			ChooseSqlNode chooseSqlNode = new ChooseSqlNode(whenSqlNodes, defaultSqlNode);
-			targetContents.add(chooseSqlNode);
-		}
-
-		private void handleWhenOtherwiseNodes(XNode chooseSqlNode, List<SqlNode> ifSqlNodes, List<SqlNode> defaultSqlNodes) {
-			List<XNode> children = chooseSqlNode.getChildren();
-			for (XNode child : children) {
-				String nodeName = child.getNode().getNodeName();
-				NodeHandler handler = nodeHandlerMap.get(nodeName);
+			List<SqlNode> defaultContents = null;
+			int otherwiseCount = 0;
+			// once a when is known to be true, neither the following whens nor the otherwise can be chosen
+			boolean decided = false;
+			for (XNode child : nodeToHandle.getChildren()) {
+				NodeHandler handler = nodeHandlerMap.get(child.getNode().getNodeName());
 				if (handler instanceof IfHandler) {
-					handler.handleNode(child, ifSqlNodes);
+					List<SqlNode> contents = parseDynamicContents(child);
+					String test = child.getStringAttribute("test");
+					Boolean constant = decided ? Boolean.FALSE : evaluateConstantTest(test);
+					if (constant == null) {
+						whenSqlNodes.add(new IfSqlNode(new MixedSqlNode(contents), test));
+					} else if (constant) {
+						defaultContents = contents;
+						decided = true;
+					}
 				} else if (handler instanceof OtherwiseHandler) {
-					handler.handleNode(child, defaultSqlNodes);
+					otherwiseCount++;
+					List<SqlNode> contents = parseDynamicContents(child);
+					if (!decided) {
+						defaultContents = contents;
+					}
 				}
 			}
-		}
-
-		private SqlNode getDefaultSqlNode(List<SqlNode> defaultSqlNodes) {
-			SqlNode defaultSqlNode = null;
-			if (defaultSqlNodes.size() == 1) {
-				defaultSqlNode = defaultSqlNodes.get(0);
-			} else if (defaultSqlNodes.size() > 1) {
+			if (otherwiseCount > 1) {
 				throw new BuilderException("Too many default (otherwise) elements in choose statement.");
 			}
-			return defaultSqlNode;
+			if (whenSqlNodes.isEmpty()) {
+				if (defaultContents != null) {
+					addAll(targetContents, defaultContents);
+				}
+			} else {
+				SqlNode defaultSqlNode = defaultContents == null ? null : new MixedSqlNode(defaultContents);
+				targetContents.add(new ChooseSqlNode(whenSqlNodes, defaultSqlNode));
+			}
 		}
 	}
 
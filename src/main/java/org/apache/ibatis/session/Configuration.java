@@ -9,9 +9,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.CacheRefResolver;
+import org.apache.ibatis.builder.ParameterMappingCache;
 import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
@@ -22,6 +31,7 @@ import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
@@ -34,8 +44,14 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.ColumnarResult;
+import org.apache.ibatis.executor.resultset.CompactRowMap;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.resultset.RowMapperFactory;
+import org.apache.ibatis.executor.resultset.RowMappingPlan;
+import org.apache.ibatis.executor.resultset.RowMappingPlanCache;
+import org.apache.ibatis.executor.resultset.javassist.JavassistRowMapperFactory;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.io.VFS;
@@ -53,6 +69,7 @@ import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
@@ -67,6 +84,8 @@ import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlMetrics;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
@@ -105,6 +124,18 @@ public class Configuration {
 	protected Set<String> lazyLoadTriggerMethods = new HashSet<String>(Arrays.asList(new String[] { "equals", "clone", "hashCode", "toString" }));
 	protected Integer defaultStatementTimeout;
 	protected Integer defaultFetchSize;
+	protected boolean adaptiveFetchSizeEnabled;
+	protected int adaptiveFetchSizeMin = 10;
+	protected int adaptiveFetchSizeMax = 1000;
+	protected boolean compiledRowMappingEnabled = true;
+	protected RowMapperFactory rowMapperFactory;
+	protected boolean compactMapResultsEnabled;
+	protected boolean streamNestedResultsEnabled;
+	protected boolean parallelResultMappingEnabled;
+	protected int parallelResultMappingBatchSize = 1024;
+	protected int dynamicSqlCacheSize = 32;
+	protected Pattern substitutionFilter;
+	protected boolean dynamicSqlMetricsEnabled;
 	protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
 	protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
 	protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
@@ -118,6 +149,9 @@ public class Configuration {
 	//设置对应的包装对象工厂对象
 	protected ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
 
+	//用于执行返回Future类型的mapper方法的异步执行器------------>未设置时会在首次使用时创建默认的执行器
+	protected java.util.concurrent.Executor asyncExecutor;
+
 	protected boolean lazyLoadingEnabled = false;
 	protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
 
@@ -144,6 +178,10 @@ public class Configuration {
 	protected final Map<String, Cache> caches = new StrictMap<Cache>("Caches collection");
 	//
 	protected final Map<String, ResultMap> resultMaps = new StrictMap<ResultMap>("Result Maps collection");
+	//用于在多次查询之间共享按结果映射和列布局编译好的行映射计划
+	protected final RowMappingPlanCache rowMappingPlanCache = new RowMappingPlanCache();
+	//用于在动态语句的多次渲染之间共享#{}占位符对应的参数映射
+	protected final ParameterMappingCache parameterMappingCache = new ParameterMappingCache();
 	//
 	protected final Map<String, ParameterMap> parameterMaps = new StrictMap<ParameterMap>("Parameter Maps collection");
 	//
@@ -207,6 +245,8 @@ public class Configuration {
 		//注册使用代理方式相关的别名
 		typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
 		typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
+		typeAliasRegistry.registerAlias("JAVASSIST_ROW_MAPPER", JavassistRowMapperFactory.class);
+		typeAliasRegistry.registerAlias("COLUMNAR", ColumnarResult.class);
 
 		//
 		languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
@@ -364,6 +404,51 @@ public class Configuration {
 		this.proxyFactory = proxyFactory;
 	}
 
+	/*
+	 * 获取执行异步mapper方法的执行器对象------------>如果没有进行配置,创建一个使用守护线程的默认线程池
+	 */
+	public synchronized java.util.concurrent.Executor getAsyncExecutor() {
+		if (asyncExecutor == null) {
+			asyncExecutor = createDefaultAsyncExecutor(defaultAsyncPoolSize());
+		}
+		return asyncExecutor;
+	}
+
+	/**
+	 * Sets the executor used to run mapper methods that return {@code Future} or {@code CompletableFuture}.
+	 * Each asynchronous call runs with its own {@link SqlSession}. When none is set, a pool with as many threads as
+	 * the pooled data source has active connections (10 for other data sources) is used; further calls queue up.
+	 */
+	public synchronized void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/*
+	 * 每个异步调用都会占用一个连接,线程数超过连接池的最大活动连接数只会让线程在连接池上等待
+	 */
+	private int defaultAsyncPoolSize() {
+		if (environment != null && environment.getDataSource() instanceof PooledDataSource) {
+			return Math.max(1, ((PooledDataSource) environment.getDataSource()).getPoolMaximumActiveConnections());
+		}
+		return 10;
+	}
+
+	private static ExecutorService createDefaultAsyncExecutor(int poolSize) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger threadNumber = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "mybatis-async-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	public boolean isAggressiveLazyLoading() {
 		return aggressiveLazyLoading;
 	}
@@ -434,6 +519,173 @@ public class Configuration {
 		this.defaultFetchSize = defaultFetchSize;
 	}
 
+	/**
+	 * When enabled, statements without an explicit {@code fetchSize} get one derived from the rows
+	 * they returned recently, bounded by {@link #getAdaptiveFetchSizeMin()} and {@link #getAdaptiveFetchSizeMax()}.
+	 */
+	public boolean isAdaptiveFetchSizeEnabled() {
+		return adaptiveFetchSizeEnabled;
+	}
+
+	public void setAdaptiveFetchSizeEnabled(boolean adaptiveFetchSizeEnabled) {
+		this.adaptiveFetchSizeEnabled = adaptiveFetchSizeEnabled;
+	}
+
+	public int getAdaptiveFetchSizeMin() {
+		return adaptiveFetchSizeMin;
+	}
+
+	public void setAdaptiveFetchSizeMin(int adaptiveFetchSizeMin) {
+		this.adaptiveFetchSizeMin = adaptiveFetchSizeMin;
+	}
+
+	public int getAdaptiveFetchSizeMax() {
+		return adaptiveFetchSizeMax;
+	}
+
+	public void setAdaptiveFetchSizeMax(int adaptiveFetchSizeMax) {
+		this.adaptiveFetchSizeMax = adaptiveFetchSizeMax;
+	}
+
+	/**
+	 * When enabled, rows of simple bean result maps are mapped through a {@link RowMappingPlan} compiled once
+	 * per result map and column layout instead of through {@code MetaObject}.
+	 */
+	public boolean isCompiledRowMappingEnabled() {
+		return compiledRowMappingEnabled;
+	}
+
+	public void setCompiledRowMappingEnabled(boolean compiledRowMappingEnabled) {
+		this.compiledRowMappingEnabled = compiledRowMappingEnabled;
+	}
+
+	public RowMapperFactory getRowMapperFactory() {
+		return rowMapperFactory;
+	}
+
+	/**
+	 * Sets the factory that turns compiled row mapping plans into row mappers, for example
+	 * {@link JavassistRowMapperFactory}. {@code null} (the default) maps rows with the plans themselves.
+	 */
+	public void setRowMapperFactory(RowMapperFactory rowMapperFactory) {
+		this.rowMapperFactory = rowMapperFactory;
+		rowMappingPlanCache.clear();
+	}
+
+	/**
+	 * When enabled (and {@link #isCompiledRowMappingEnabled()} is), auto-mapped {@code resultType="map"} rows are
+	 * returned as immutable {@link CompactRowMap}s sharing one column layout instead of {@code HashMap}s.
+	 */
+	public boolean isCompactMapResultsEnabled() {
+		return compactMapResultsEnabled;
+	}
+
+	public void setCompactMapResultsEnabled(boolean compactMapResultsEnabled) {
+		this.compactMapResultsEnabled = compactMapResultsEnabled;
+		rowMappingPlanCache.clear();
+	}
+
+	/**
+	 * When enabled, nested result maps read through a {@code Cursor} or a custom {@code ResultHandler} are assembled
+	 * as if the statement declared {@code resultOrdered="true"}: each parent is handed over and forgotten as soon as
+	 * the parent key changes, so memory stays bounded by one parent graph. Such queries must order their rows by the
+	 * parent id columns.
+	 */
+	public boolean isStreamNestedResultsEnabled() {
+		return streamNestedResultsEnabled;
+	}
+
+	public void setStreamNestedResultsEnabled(boolean streamNestedResultsEnabled) {
+		this.streamNestedResultsEnabled = streamNestedResultsEnabled;
+	}
+
+	/**
+	 * When enabled, the rows of simple result maps that compile into a row mapping plan are read into buffers on the
+	 * calling thread and mapped into objects by a fork-join pool, one batch of
+	 * {@link #getParallelResultMappingBatchSize()} rows per task. The returned list keeps the row order. Queries with
+	 * a custom {@code ResultHandler}, cursors and nested or discriminated result maps are always mapped on the calling
+	 * thread.
+	 */
+	public boolean isParallelResultMappingEnabled() {
+		return parallelResultMappingEnabled;
+	}
+
+	public void setParallelResultMappingEnabled(boolean parallelResultMappingEnabled) {
+		this.parallelResultMappingEnabled = parallelResultMappingEnabled;
+	}
+
+	public int getParallelResultMappingBatchSize() {
+		return parallelResultMappingBatchSize;
+	}
+
+	public void setParallelResultMappingBatchSize(int parallelResultMappingBatchSize) {
+		this.parallelResultMappingBatchSize = parallelResultMappingBatchSize;
+	}
+
+	/**
+	 * Number of parsed SQL shapes each dynamic statement keeps. A dynamic statement renders its SQL for every call,
+	 * but usually produces only a handful of distinct texts; the parameter mappings parsed from a text are reused the
+	 * next time the same text is rendered. The least recently used shape is dropped when the limit is reached, and
+	 * {@code 0} disables the cache.
+	 */
+	public int getDynamicSqlCacheSize() {
+		return dynamicSqlCacheSize;
+	}
+
+	public void setDynamicSqlCacheSize(int dynamicSqlCacheSize) {
+		this.dynamicSqlCacheSize = dynamicSqlCacheSize;
+	}
+
+	/**
+	 * Pattern every value substituted through {@code ${}} in a mapped statement must match entirely, e.g. an
+	 * allow-list of tenant table names. {@code null} (the default) accepts any value.
+	 */
+	public Pattern getSubstitutionFilter() {
+		return substitutionFilter;
+	}
+
+	public void setSubstitutionFilter(Pattern substitutionFilter) {
+		this.substitutionFilter = substitutionFilter;
+	}
+
+	/**
+	 * When enabled, every dynamic statement records how many distinct SQL texts it renders, how long rendering takes
+	 * and how many parameters it binds. See {@link #getDynamicSqlMetrics()}.
+	 */
+	public boolean isDynamicSqlMetricsEnabled() {
+		return dynamicSqlMetricsEnabled;
+	}
+
+	public void setDynamicSqlMetricsEnabled(boolean dynamicSqlMetricsEnabled) {
+		this.dynamicSqlMetricsEnabled = dynamicSqlMetricsEnabled;
+	}
+
+	/**
+	 * Rendering statistics of the dynamic statements rendered so far, keyed by statement id.
+	 */
+	public Map<String, DynamicSqlMetrics> getDynamicSqlMetrics() {
+		Map<String, DynamicSqlMetrics> metrics = new TreeMap<String, DynamicSqlMetrics>();
+		// short names map to the same statement (or to an ambiguity marker), so only full ids are collected
+		for (Object value : getMappedStatements()) {
+			if (value instanceof MappedStatement && ((MappedStatement) value).getSqlSource() instanceof DynamicSqlSource) {
+				MappedStatement ms = (MappedStatement) value;
+				DynamicSqlMetrics statementMetrics = ((DynamicSqlSource) ms.getSqlSource()).getMetrics();
+				if (statementMetrics != null) {
+					metrics.put(ms.getId(), statementMetrics);
+				}
+			}
+		}
+		return metrics;
+	}
+
+	public RowMappingPlanCache getRowMappingPlanCache() {
+		return rowMappingPlanCache;
+	}
+
+	public ParameterMappingCache getParameterMappingCache() {
+		return parameterMappingCache;
+	}
+
 	public boolean isUseColumnLabel() {
 		return useColumnLabel;
 	}
@@ -640,6 +892,7 @@ public class Configuration {
 		resultMaps.put(rm.getId(), rm);
 		checkLocallyForDiscriminatedNestedResultMaps(rm);
 		checkGloballyForDiscriminatedNestedResultMaps(rm);
+		checkForNestedResultMapsWithoutIds(rm);
 	}
 
 	public Collection<String> getResultMapNames() {
@@ -862,6 +1115,36 @@ public class Configuration {
 		}
 	}
 
+	// Nested result maps without <id> make every row key hold all of their mapped columns.
+	protected void checkForNestedResultMapsWithoutIds(ResultMap rm) {
+		for (ResultMapping resultMapping : rm.getResultMappings()) {
+			String nestedResultMapId = resultMapping.getNestedResultMapId();
+			if (nestedResultMapId != null && resultMapping.getResultSet() == null && hasResultMap(nestedResultMapId)) {
+				warnIfNestedResultMapHasNoIds(resultMaps.get(nestedResultMapId), rm);
+			}
+		}
+		for (Map.Entry<String, ResultMap> entry : resultMaps.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof ResultMap && value != rm && entry.getKey().equals(((ResultMap) value).getId())
+					&& ((ResultMap) value).hasNestedResultMaps()) {
+				ResultMap parent = (ResultMap) value;
+				for (ResultMapping resultMapping : parent.getResultMappings()) {
+					if (rm.getId().equals(resultMapping.getNestedResultMapId()) && resultMapping.getResultSet() == null) {
+						warnIfNestedResultMapHasNoIds(rm, parent);
+					}
+				}
+			}
+		}
+	}
+
+	private void warnIfNestedResultMapHasNoIds(ResultMap nested, ResultMap parent) {
+		if (!nested.hasIdMappings() && (nested.getResultMappings().size() > 1 || nested.hasNestedResultMaps())) {
+			LogFactory.getLog(Configuration.class).warn("Nested result map '" + nested.getId() + "' of result map '"
+					+ parent.getId() + "' declares no <id> mapping. Rows are told apart by all of its mapped columns,"
+					+ " which is slower and may merge distinct rows. Add an <id> element to this result map.");
+		}
+	}
+
 	protected static class StrictMap<V> extends HashMap<String, V> {
 
 		private static final long serialVersionUID = -4950446264854982944L;
@@ -0,0 +1,143 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml.dynamic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlMetrics;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlMetricsMonitor;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.IfSqlNode;
+import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+public class DynamicSqlMetricsTest {
+
+	@Test
+	public void shouldNotRecordWhenDisabled() {
+		Configuration configuration = new Configuration();
+		DynamicSqlSource source = addStatement(configuration, "findByIds");
+		source.getBoundSql(ids(3));
+		assertNull(source.getMetrics());
+		assertTrue(configuration.getDynamicSqlMetrics().isEmpty());
+	}
+
+	@Test
+	public void shouldCountShapesAndBindsPerStatement() {
+		Configuration configuration = new Configuration();
+		configuration.setDynamicSqlMetricsEnabled(true);
+		DynamicSqlSource byIds = addStatement(configuration, "findByIds");
+		DynamicSqlSource byAuthor = addStatement(configuration, "findByAuthor");
+		for (int round = 0; round < 2; round++) {
+			for (int size = 1; size <= 40; size++) {
+				byIds.getBoundSql(ids(size));
+			}
+			byAuthor.getBoundSql(ids(0));
+		}
+		Map<String, DynamicSqlMetrics> metrics = configuration.getDynamicSqlMetrics();
+		assertEquals(Arrays.asList("test.findByAuthor", "test.findByIds"), new ArrayList<String>(metrics.keySet()));
+		DynamicSqlMetrics idsMetrics = metrics.get("test.findByIds");
+		assertEquals(80, idsMetrics.getRenderCount());
+		assertEquals(40, idsMetrics.getDistinctShapes(), 2);
+		assertEquals(40, idsMetrics.getMaxBindCount());
+		assertEquals(20.5, idsMetrics.getAverageBindCount(), 0.001);
+		assertTrue(idsMetrics.getMaxRenderNanos() >= idsMetrics.getAverageRenderNanos());
+		DynamicSqlMetrics authorMetrics = metrics.get("test.findByAuthor");
+		assertEquals(2, authorMetrics.getRenderCount());
+		assertEquals(1, authorMetrics.getDistinctShapes());
+		assertEquals(0, authorMetrics.getMaxBindCount());
+	}
+
+	@Test
+	public void shouldEstimateManyShapesWithinFewPercent() {
+		DynamicSqlMetrics metrics = new DynamicSqlMetrics();
+		for (int i = 0; i < 100000; i++) {
+			metrics.record("select * from blog where id in (" + i + ")", 1, 10);
+			metrics.record("select * from blog where id in (" + i + ")", 1, 10);
+		}
+		assertEquals(100000, metrics.getDistinctShapes(), 10000);
+		metrics.reset();
+		assertEquals(0, metrics.getRenderCount());
+		assertEquals(0, metrics.getDistinctShapes());
+	}
+
+	@Test
+	public void shouldExposeMetricsOverJmx() throws Exception {
+		Configuration configuration = new Configuration();
+		DynamicSqlSource source = addStatement(configuration, "findByIds");
+		DynamicSqlMetricsMonitor monitor = new DynamicSqlMetricsMonitor(configuration);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = monitor.register(server);
+		try {
+			assertEquals(Boolean.FALSE, server.getAttribute(name, "Enabled"));
+			monitor.setEnabled(true);
+			for (int size = 1; size <= 5; size++) {
+				source.getBoundSql(ids(size));
+			}
+			TabularData statements = (TabularData) server.getAttribute(name, "Statements");
+			assertEquals(1, statements.size());
+			assertArrayEquals(new String[] { "test.findByIds" },
+					(String[]) server.invoke(name, "findShapeExplosions", new Object[] { 5L }, new String[] { "long" }));
+			assertArrayEquals(new String[0],
+					(String[]) server.invoke(name, "findShapeExplosions", new Object[] { 6L }, new String[] { "long" }));
+			server.invoke(name, "reset", null, null);
+			assertEquals(0, source.getMetrics().getRenderCount());
+		} finally {
+			monitor.unregister();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+	private DynamicSqlSource addStatement(Configuration configuration, String id) {
+		SqlNode root = new MixedSqlNode(Arrays.<SqlNode>asList(new StaticTextSqlNode("select * from blog"),
+				new IfSqlNode(new ForEachSqlNode(configuration, new StaticTextSqlNode("#{id}"), "ids", null, "id",
+						"where id in (", ")", ","), "ids.size() > 0")));
+		DynamicSqlSource source = new DynamicSqlSource(configuration, root);
+		configuration.addMappedStatement(
+				new MappedStatement.Builder(configuration, "test." + id, source, SqlCommandType.SELECT).build());
+		return source;
+	}
+
+	private Map<String, Object> ids(int size) {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int i = 0; i < size; i++) {
+			ids.add(i);
+		}
+		return Collections.<String, Object>singletonMap("ids", ids);
+	}
+
+}
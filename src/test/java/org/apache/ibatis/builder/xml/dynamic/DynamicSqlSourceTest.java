@@ -1,19 +1,27 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.scripting.ScriptingException;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
@@ -23,6 +31,7 @@ import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -305,6 +314,167 @@ public class DynamicSqlSourceTest extends BaseDataTest {
 		assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
 	}
 
+	@Test
+	public void shouldOnlyRewriteWholeForEachVariableNames() throws Exception {
+		final Map<String, Object> param = new HashMap<String, Object>();
+		param.put("list", Arrays.asList("a", "b"));
+		param.put("itemCount", 2);
+		DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(
+				new TextSqlNode("SELECT * FROM BLOG WHERE"),
+				new ForEachSqlNode(new Configuration(),
+						mixedContents(new TextSqlNode("(#{ item }, #{i:INTEGER}, #{itemCount})")), "list", "i", "item",
+						"", "", "or")));
+		BoundSql boundSql = source.getBoundSql(param);
+		assertEquals("SELECT * FROM BLOG WHERE   (?, ?, ?) or (?, ?, ?)", boundSql.getSql());
+		assertEquals("__frch_item_0", boundSql.getParameterMappings().get(0).getProperty());
+		assertEquals("__frch_i_0", boundSql.getParameterMappings().get(1).getProperty());
+		assertEquals("itemCount", boundSql.getParameterMappings().get(2).getProperty());
+		assertEquals("__frch_item_1", boundSql.getParameterMappings().get(3).getProperty());
+		assertEquals("__frch_i_1", boundSql.getParameterMappings().get(4).getProperty());
+	}
+
+	@Test
+	public void shouldTrimOverridesIgnoringCase() throws Exception {
+		DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(
+				new TextSqlNode("SELECT * FROM BLOG"),
+				new WhereSqlNode(new Configuration(), mixedContents(new TextSqlNode("  and ID = 1  ")))));
+		assertEquals("SELECT * FROM BLOG WHERE  ID = 1", source.getBoundSql(null).getSql());
+	}
+
+	@Test
+	public void shouldRenderDatabaseSpecificBranchesTheSameWhenFoldedAtBuildTime() throws Exception {
+		final Configuration configuration = new Configuration();
+		configuration.setDatabaseId("hsql");
+		final Map<String, Object> param = new HashMap<String, Object>();
+		param.put("id", 1);
+		assertEquals("select * from blog  where id = 1",
+				renderScript(configuration, "<script>select * from blog <if test=\"_databaseId == 'hsql'\">where id = 1</if>"
+						+ "<if test=\"_databaseId == 'oracle'\">where rownum = 1</if></script>", param));
+		assertEquals("select  B",
+				renderScript(configuration, "<script>select <choose><when test=\"_databaseId == 'oracle'\">A</when>"
+						+ "<when test=\"_databaseId == 'hsql'\">B</when><otherwise>C</otherwise></choose></script>", param));
+		assertEquals("select  C",
+				renderScript(configuration, "<script>select <choose><when test=\"_databaseId == 'oracle'\">A</when>"
+						+ "<otherwise>C</otherwise></choose></script>", param));
+		assertEquals("select * from blog  WHERE  a = 1 and id = ?",
+				renderScript(configuration, "<script>select * from blog <where><if test=\"_databaseId != null\"> and a = 1 </if>"
+						+ "<if test=\"id != null\">and id = #{id}</if></where></script>", param));
+		assertEquals("select * from blog  WHERE  id = 1 order by id",
+				renderScript(configuration, "<script>select * from blog <where> and id = 1 </where>order by id</script>", param));
+	}
+
+	@Test
+	public void shouldSubstituteOnlyUnescapedClosedTokens() throws Exception {
+		final Map<String, Object> param = new HashMap<String, Object>();
+		param.put("table", "blog");
+		param.put("column", "id");
+		final TextSqlNode node = new TextSqlNode("select \\${raw} from ${table} where ${column} = 1 ${open");
+		assertTrue(node.isDynamic());
+		assertFalse(new TextSqlNode("select \\${raw} from ${table").isDynamic());
+		assertEquals("select ${raw} from blog where id = 1 ${open",
+				new DynamicSqlSource(new Configuration(), node).getBoundSql(param).getSql());
+	}
+
+	@Test
+	public void shouldRejectSubstitutedValuesOutsideTheFilter() throws Exception {
+		final Configuration configuration = new Configuration();
+		configuration.setSubstitutionFilter(Pattern.compile("tenant_[a-z]+"));
+		final Map<String, Object> param = new HashMap<String, Object>();
+		param.put("tenant", "tenant_a");
+		assertEquals("select * from tenant_a.blog", renderScript(configuration, "select * from ${tenant}.blog", param));
+		param.put("tenant", "tenant_a.blog; drop table blog; --");
+		try {
+			renderScript(configuration, "<script>select * from ${tenant}.blog</script>", param);
+			fail("Should have rejected the substituted value");
+		} catch (ScriptingException e) {
+			assertTrue(e.getMessage().contains("tenant_[a-z]+"));
+		}
+	}
+
+	private String renderScript(Configuration configuration, String script, Object parameter) {
+		return new XMLLanguageDriver().createSqlSource(configuration, script, null).getBoundSql(parameter).getSql();
+	}
+
+	@Test
+	public void shouldReuseParameterMappingsForSameRenderedSql() throws Exception {
+		final DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(
+				new TextSqlNode("SELECT * FROM BLOG"),
+				new IfSqlNode(mixedContents(new TextSqlNode("WHERE ID = #{id}")), "id != null")));
+		BoundSql first = source.getBoundSql(new Bean("1"));
+		BoundSql second = source.getBoundSql(new Bean("2"));
+		BoundSql other = source.getBoundSql(new Bean(null));
+		assertEquals("SELECT * FROM BLOG WHERE ID = ?", second.getSql());
+		assertSame(first.getParameterMappings(), second.getParameterMappings());
+		assertEquals("2", ((Bean) second.getParameterObject()).getId());
+		assertEquals("SELECT * FROM BLOG", other.getSql());
+		assertEquals(0, other.getParameterMappings().size());
+	}
+
+	@Test
+	public void shouldReparseWhenForEachItemTypeChanges() throws Exception {
+		final DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(
+				new TextSqlNode("SELECT * FROM BLOG"),
+				new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", null,
+						"item", "WHERE ID in (", ")", ",")));
+		BoundSql integers = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(1)));
+		BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList("1")));
+		BoundSql integersAgain = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(2)));
+		assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+		assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+		assertEquals(Integer.class, integersAgain.getParameterMappings().get(0).getJavaType());
+	}
+
+	@Test
+	public void shouldReparseWhenTypeOfBoundPropertyPathChanges() throws Exception {
+		final DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(
+				new TextSqlNode("SELECT * FROM BLOG"),
+				new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item.id}")), "list", null,
+						"item", "WHERE ID in (", ")", ",")));
+		BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(new Bean("1"))));
+		BoundSql stringsAgain = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(new Bean("2"))));
+		BoundSql integers = source.getBoundSql(Collections.singletonMap("list",
+				Collections.singletonList(Collections.singletonMap("id", 1))));
+		assertSame(strings.getParameterMappings(), stringsAgain.getParameterMappings());
+		assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+		assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+	}
+
+	@Test
+	public void shouldParseEveryCallWhenCacheIsDisabled() throws Exception {
+		final Configuration configuration = new Configuration();
+		configuration.setDynamicSqlCacheSize(0);
+		final DynamicSqlSource source = new DynamicSqlSource(configuration,
+				mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}")));
+		BoundSql first = source.getBoundSql(new Bean("1"));
+		BoundSql second = source.getBoundSql(new Bean("1"));
+		assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+		assertEquals(first.getParameterMappings().get(0).getProperty(), second.getParameterMappings().get(0).getProperty());
+	}
+
+	@Test
+	public void shouldShareParameterMappingsAcrossParses() throws Exception {
+		final Configuration configuration = new Configuration();
+		configuration.setDynamicSqlCacheSize(0);
+		final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+				new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id,jdbcType=VARCHAR} AND"),
+				new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "list", null,
+						"item", "ID in (", ")", ",")));
+		final Map<String, Object> integers = new HashMap<String, Object>();
+		integers.put("id", "1");
+		integers.put("list", Collections.singletonList(1));
+		final Map<String, Object> strings = new HashMap<String, Object>(integers);
+		strings.put("list", Collections.singletonList("1"));
+		BoundSql first = source.getBoundSql(integers);
+		BoundSql second = source.getBoundSql(integers);
+		BoundSql other = source.getBoundSql(strings);
+		assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+		assertSame(first.getParameterMappings().get(0), second.getParameterMappings().get(0));
+		assertSame(first.getParameterMappings().get(1), second.getParameterMappings().get(1));
+		assertSame(first.getParameterMappings().get(0), other.getParameterMappings().get(0));
+		assertEquals(Integer.class, first.getParameterMappings().get(1).getJavaType());
+		assertEquals(String.class, other.getParameterMappings().get(1).getJavaType());
+	}
+
 	private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
 		createBlogDataSource();
 		final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
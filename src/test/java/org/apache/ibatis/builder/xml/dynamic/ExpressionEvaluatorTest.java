@@ -17,11 +17,18 @@ package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
+
+import ognl.Ognl;
 
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
 import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+import org.apache.ibatis.scripting.xmltags.OgnlCache;
+import org.apache.ibatis.session.Configuration;
 import org.junit.Test;
 
 public class ExpressionEvaluatorTest {
@@ -85,5 +92,49 @@ public class ExpressionEvaluatorTest {
     }
   }
 
+  @Test
+  public void shouldEvaluateCommonTestsLikeOgnlAgainstBeanBindings() throws Exception {
+    Author author = new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS);
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), author).getBindings();
+    assertSameAsOgnl(bindings, "username != null", "username == 'cbegin'", "password == null",
+        "id > 0 and username != null", "id == 0 or password == null", "!(id == 1)", "not (id lt 1)", "id >= 1",
+        "id <= 0", "username.length() > 3", "_parameter.username", "bio", "id == 1 and 'x'", "password or id",
+        "_parameter != null && _parameter.id neq 2", "id == 1.0", "username == \"cbegin\"");
+  }
+
+  @Test
+  public void shouldEvaluateCommonTestsLikeOgnlAgainstMapBindings() throws Exception {
+    Map<String, Object> nested = new HashMap<String, Object>();
+    nested.put("inner", "xy");
+    nested.put("size", "not the size");
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("list", Arrays.asList(1, 2));
+    parameter.put("name", "a");
+    parameter.put("nested", nested);
+    parameter.put("empty", null);
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+    assertSameAsOgnl(bindings, "list != null and list.size() > 0", "list.isEmpty()", "list.size", "nested.inner == 'xy'",
+        "nested.size", "nested.missing == null", "name == 'ab'", "empty == null", "missing", "_parameter.name",
+        "nested.inner.length() == 2");
+  }
+
+  @Test
+  public void shouldCallPublicMethodsOfNonPublicClassesThroughTheirInterface() {
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("list", Arrays.asList(1, 2));
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+    for (int i = 0; i < 2; i++) {
+      assertEquals(Boolean.TRUE, OgnlCache.getValue("list != null and list.size() > 1", bindings));
+      assertEquals(Boolean.FALSE, OgnlCache.getValue("list.isEmpty()", bindings));
+    }
+  }
+
+  private void assertSameAsOgnl(Map<String, Object> bindings, String... expressions) throws Exception {
+    for (String expression : expressions) {
+      assertEquals(expression, Ognl.getValue(expression, bindings), OgnlCache.getValue(expression, bindings));
+      // the second evaluation goes through the getters remembered by the first one
+      assertEquals(expression, Ognl.getValue(expression, bindings), OgnlCache.getValue(expression, bindings));
+    }
+  }
 
 }
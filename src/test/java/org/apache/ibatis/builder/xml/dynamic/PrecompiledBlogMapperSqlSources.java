@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+// Generated by org.apache.ibatis.scripting.xmltags.SqlSourceCompiler. Do not edit.
+package org.apache.ibatis.builder.xml.dynamic;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.PrecompiledSqlSources;
+import org.apache.ibatis.scripting.xmltags.SetSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.scripting.xmltags.TrimSqlNode;
+import org.apache.ibatis.scripting.xmltags.VarDeclSqlNode;
+import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
+import org.apache.ibatis.session.Configuration;
+
+public final class PrecompiledBlogMapperSqlSources implements PrecompiledSqlSources {
+
+	private static final ExpressionEvaluator EVALUATOR = new ExpressionEvaluator();
+
+	@Override
+	public SqlSource getSqlSource(Configuration configuration, String id, String databaseId, String fingerprint) {
+		if ("findBlogs".equals(id) && databaseId == null && "b1c821ebc785ae24".equals(fingerprint)) {
+			return sqlSource0(configuration);
+		}
+		if ("updateBlog".equals(id) && databaseId == null && "dcae37186b8502d7".equals(fingerprint)) {
+			return sqlSource1(configuration);
+		}
+		if ("insertBlog".equals(id) && databaseId == null && "f225eba6f4035e4a".equals(fingerprint)) {
+			return sqlSource2(configuration);
+		}
+		return null;
+	}
+
+	private static SqlSource sqlSource0(final Configuration configuration) {
+		final SqlNode node0 = new VarDeclSqlNode("pattern", "title != null ? \"%\" + title + \"%\" : null");
+		final SqlNode node1 = new ForEachSqlNode(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("#{item}");
+				return true;
+			}
+		}, "ids", null, "item", "(", ")", ",", false, 0, null);
+		final SqlNode node2 = new WhereSqlNode(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("id != null", context.getBindings())) {
+					context.appendSql("and id = #{id}");
+				}
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("title != null", context.getBindings())) {
+					context.appendSql("and title like #{pattern}");
+				}
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("authorId != null", context.getBindings())) {
+					context.appendSql("and author_id = #{authorId}");
+				} else if (EVALUATOR.evaluateBoolean("_databaseId == 'hsql'", context.getBindings())) {
+					context.appendSql("and author_id is null");
+				} else {
+					context.appendSql("and 1 = 1");
+				}
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("ids != null", context.getBindings())) {
+					context.appendSql("\n        and id in\n        ");
+					node1.apply(context);
+					context.appendSql("\n      ");
+				}
+				context.appendSql("\n    ");
+				return true;
+			}
+		});
+		final SqlNode node3 = new TextSqlNode("\n    order by ${orderBy}\n  ", configuration.getSubstitutionFilter());
+		return new DynamicSqlSource(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("\n    ");
+				node0.apply(context);
+				context.appendSql("\n    select * from blog\n    ");
+				node2.apply(context);
+				node3.apply(context);
+				return true;
+			}
+		});
+	}
+
+	private static SqlSource sqlSource1(final Configuration configuration) {
+		final SqlNode node0 = new SetSqlNode(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("title != null", context.getBindings())) {
+					context.appendSql("title = #{title},");
+				}
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("authorId != null", context.getBindings())) {
+					context.appendSql("author_id = #{authorId},");
+				}
+				context.appendSql("\n    ");
+				return true;
+			}
+		});
+		final SqlNode node1 = new TrimSqlNode(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("\n      ");
+				if (EVALUATOR.evaluateBoolean("id != null", context.getBindings())) {
+					context.appendSql("and id = #{id}");
+				}
+				context.appendSql("\n    ");
+				return true;
+			}
+		}, "where", "and |or ", null, null);
+		return new DynamicSqlSource(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("\n    update blog\n    ");
+				node0.apply(context);
+				context.appendSql("\n    ");
+				node1.apply(context);
+				context.appendSql("\n  ");
+				return true;
+			}
+		});
+	}
+
+	private static SqlSource sqlSource2(final Configuration configuration) {
+		return new DynamicSqlSource(configuration, new SqlNode() {
+			@Override
+			public boolean apply(DynamicContext context) {
+				context.appendSql("\n    ");
+				context.appendSql("\n    insert into blog (id, title) values (#{id}, ");
+				if (EVALUATOR.evaluateBoolean("title != null", context.getBindings())) {
+					context.appendSql("#{title}");
+				}
+				if (EVALUATOR.evaluateBoolean("title == null", context.getBindings())) {
+					context.appendSql("'none'");
+				}
+				context.appendSql(")\n  ");
+				return true;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,162 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml.dynamic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.SqlSourceCompiler;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+public class PrecompiledSqlSourceTest {
+
+	private static final String RESOURCE = "org/apache/ibatis/builder/xml/dynamic/PrecompiledBlogMapper.xml";
+	private static final String SOURCE = "src/test/java/org/apache/ibatis/builder/xml/dynamic/PrecompiledBlogMapperSqlSources.java";
+	private static final String NAMESPACE = "org.apache.ibatis.builder.xml.dynamic.PrecompiledBlogMapper";
+
+	@Test
+	public void shouldUseGeneratedSqlSourcesForCompiledStatements() throws Exception {
+		Configuration configuration = load(readMapper());
+		assertSame(PrecompiledBlogMapperSqlSources.class, generatedBy(configuration, "findBlogs"));
+		assertSame(PrecompiledBlogMapperSqlSources.class, generatedBy(configuration, "updateBlog"));
+		assertSame(PrecompiledBlogMapperSqlSources.class, generatedBy(configuration, "insertBlog"));
+		// include is resolved at runtime and static statements are raw SQL
+		assertNull(generatedBy(configuration, "findColumns"));
+		assertEquals("select id, title from blog where id = ?",
+				configuration.getMappedStatement("findColumns").getBoundSql(params(1, null, null, null)).getSql().replaceAll("\\s+", " "));
+	}
+
+	@Test
+	public void shouldRenderLikeTheXmlStatements() throws Exception {
+		String xml = readMapper();
+		Configuration precompiled = load(xml);
+		Configuration interpreted = load(xml.replace(NAMESPACE, "org.apache.ibatis.builder.xml.dynamic.InterpretedBlogMapper"));
+		List<Map<String, Object>> parameters = Arrays.asList(params(null, null, null, null), params(1, "mybatis", null, null),
+				params(null, null, 101, Arrays.asList(1, 2, 3)), params(1, "mybatis", 101, Arrays.asList(1)));
+		for (String id : Arrays.asList("findBlogs", "updateBlog", "insertBlog")) {
+			for (Map<String, Object> parameter : parameters) {
+				BoundSql expected = interpreted.getMappedStatement(id).getBoundSql(parameter);
+				BoundSql actual = precompiled.getMappedStatement(id).getBoundSql(parameter);
+				assertEquals(expected.getSql(), actual.getSql());
+				assertEquals(properties(expected), properties(actual));
+			}
+		}
+	}
+
+	@Test
+	public void shouldFallBackToXmlWhenStatementChanged() throws Exception {
+		Configuration configuration = load(readMapper().replace("select * from blog", "select id from blog"));
+		assertNull(generatedBy(configuration, "findBlogs"));
+		assertSame(PrecompiledBlogMapperSqlSources.class, generatedBy(configuration, "updateBlog"));
+		assertEquals("select id from blog WHERE author_id is null order by title",
+				configuration.getMappedStatement("findBlogs").getBoundSql(params(null, null, null, null)).getSql().replaceAll("\\s+", " "));
+	}
+
+	@Test
+	public void shouldNotGenerateSourceWithoutCompilableStatements() throws Exception {
+		String xml = readMapper();
+		SqlSourceCompiler compiler = new SqlSourceCompiler();
+		assertNull(compiler.compile(mapperNode(xml.replace(NAMESPACE, "not-a-class-name"))));
+		assertNull(compiler.compile(mapperNode(xml.replace(NAMESPACE, "com.acme.case.BlogMapper"))));
+		assertNull(compiler.compile(mapperNode(xml.substring(0, xml.indexOf("<select id=\"findBlogs\"")) + "</mapper>")));
+	}
+
+	@Test
+	public void shouldMatchTheCheckedInGeneratedSource() throws Exception {
+		String checkedIn = read(new InputStreamReader(new FileInputStream(SOURCE), "UTF-8"));
+		// the license header is added when the file is checked in
+		checkedIn = checkedIn.substring(checkedIn.indexOf("// Generated by "));
+		assertEquals(checkedIn, new SqlSourceCompiler().compile(mapperNode(readMapper())));
+	}
+
+	private static Class<?> generatedBy(Configuration configuration, String id) throws Exception {
+		Object sqlSource = configuration.getMappedStatement(id).getSqlSource();
+		if (!(sqlSource instanceof DynamicSqlSource)) {
+			return null;
+		}
+		Field field = DynamicSqlSource.class.getDeclaredField("rootSqlNode");
+		field.setAccessible(true);
+		return field.get(sqlSource).getClass().getEnclosingClass();
+	}
+
+	private static Map<String, Object> params(Integer id, String title, Integer authorId, List<Integer> ids) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("id", id);
+		params.put("title", title);
+		params.put("authorId", authorId);
+		params.put("ids", ids);
+		params.put("orderBy", "title");
+		return params;
+	}
+
+	private static String properties(BoundSql boundSql) {
+		StringBuilder properties = new StringBuilder();
+		for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+			properties.append(mapping.getProperty()).append(':').append(mapping.getJavaType().getSimpleName()).append(',');
+		}
+		return properties.toString();
+	}
+
+	private static Configuration load(String xml) {
+		Configuration configuration = new Configuration();
+		configuration.setDatabaseId("hsql");
+		new XMLMapperBuilder(new StringReader(xml), configuration, RESOURCE, configuration.getSqlFragments()).parse();
+		return configuration;
+	}
+
+	private static XNode mapperNode(String xml) {
+		return new XPathParser(xml, true, null, new XMLMapperEntityResolver()).evalNode("/mapper");
+	}
+
+	private static String readMapper() throws IOException {
+		return read(Resources.getResourceAsReader(RESOURCE));
+	}
+
+	private static String read(Reader reader) throws IOException {
+		try {
+			StringBuilder xml = new StringBuilder();
+			char[] buffer = new char[1024];
+			for (int read = reader.read(buffer); read != -1; read = reader.read(buffer)) {
+				xml.append(buffer, 0, read);
+			}
+			return xml.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+}
@@ -15,7 +15,18 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.statement.QueryDeadline;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.Test;
 
 public class ReuseExecutorTest extends BaseExecutorTest {
@@ -30,6 +41,37 @@ public class ReuseExecutorTest extends BaseExecutorTest {
     super.shouldFetchPostWithBlogWithCompositeKey();
   }
 
+  @Test
+  public void shouldRestoreQueryTimeoutOfReusedStatementAfterDeadline() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      QueryDeadline deadline = QueryDeadline.after(30, TimeUnit.SECONDS);
+      deadline.bind();
+      try {
+        executor.query(selectStatement, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      } finally {
+        deadline.unbind();
+      }
+      Statement statement = cachedStatement(executor);
+      assertEquals(30, statement.getQueryTimeout());
+      executor.clearLocalCache();
+      executor.query(selectStatement, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(5000, cachedStatement(executor).getQueryTimeout());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  private static Statement cachedStatement(Executor executor) throws Exception {
+    Field field = ReuseExecutor.class.getDeclaredField("statementMap");
+    field.setAccessible(true);
+    Map<?, ?> statements = (Map<?, ?>) field.get(executor);
+    assertEquals(1, statements.size());
+    return (Statement) statements.values().iterator().next();
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new ReuseExecutor(config,transaction);
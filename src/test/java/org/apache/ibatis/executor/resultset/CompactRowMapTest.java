@@ -0,0 +1,71 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class CompactRowMapTest {
+
+  private final CompactRowMap.Layout layout = new CompactRowMap.Layout(new String[] { "ID", "NAME", "AGE" });
+
+  @Test
+  public void shouldLeaveNullColumnsOutLikeAHashMapRow() {
+    CompactRowMap row = new CompactRowMap(layout, new Object[] { 1, "User1", null }, false);
+    Map<String, Object> expected = new HashMap<String, Object>();
+    expected.put("ID", 1);
+    expected.put("NAME", "User1");
+    assertEquals(expected, row);
+    assertEquals(expected.hashCode(), row.hashCode());
+    assertEquals(2, row.size());
+    assertFalse(row.containsKey("AGE"));
+    assertNull(row.get("AGE"));
+    assertNull(row.get("UNKNOWN"));
+  }
+
+  @Test
+  public void shouldKeepNullColumnsWhenCallingSettersOnNulls() {
+    CompactRowMap row = new CompactRowMap(layout, new Object[] { 1, null, null }, true);
+    assertEquals(3, row.size());
+    assertTrue(row.containsKey("AGE"));
+    assertEquals("{ID=1, NAME=null, AGE=null}", row.toString());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldBeImmutable() {
+    new CompactRowMap(layout, new Object[] { 1, "User1", 30 }, false).put("ID", 2);
+  }
+
+  @Test
+  public void shouldSurviveSerialization() throws Exception {
+    CompactRowMap row = new CompactRowMap(layout, new Object[] { 1, "User1", null }, false);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(row);
+    out.close();
+    Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertEquals(row, copy);
+  }
+
+}
@@ -0,0 +1,109 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.Test;
+
+public class ResultSetLayoutCacheTest {
+
+  private final Configuration configuration = new Configuration();
+  private final ResultSetLayoutCache cache = new ResultSetLayoutCache();
+
+  private ResultSet resultSet(String[] labels, int[] types) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(rs.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(labels.length);
+    for (int i = 0; i < labels.length; i++) {
+      when(metaData.getColumnLabel(i + 1)).thenReturn(labels[i]);
+      when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+      when(metaData.getColumnClassName(i + 1)).thenReturn(types[i] == Types.INTEGER ? Integer.class.getName()
+          : String.class.getName());
+    }
+    return rs;
+  }
+
+  @Test
+  public void shouldReuseLayoutOfSameColumns() throws SQLException {
+    ResultMap resultMap = new ResultMap.Builder(configuration, "users", Object.class,
+        new ArrayList<ResultMapping>()).build();
+    ResultSetWrapper first = new ResultSetWrapper(
+        resultSet(new String[] { "id", "name" }, new int[] { Types.INTEGER, Types.VARCHAR }), configuration, cache);
+    ResultSet secondRs = resultSet(new String[] { "id", "name" }, new int[] { Types.INTEGER, Types.VARCHAR });
+    ResultSetWrapper second = new ResultSetWrapper(secondRs, configuration, cache);
+
+    assertEquals(1, cache.size());
+    verify(secondRs.getMetaData(), never()).getColumnClassName(anyInt());
+    assertEquals(first.getClassNames(), second.getClassNames());
+    assertSame(first.getUnmappedColumnNames(resultMap, null), second.getUnmappedColumnNames(resultMap, null));
+    assertSame(first.getTypeHandler(Integer.class, "id"), second.getTypeHandler(Integer.class, "id"));
+    assertEquals(first.getColumnLayoutKey(), second.getColumnLayoutKey());
+  }
+
+  @Test
+  public void shouldLookUpColumnsCaseInsensitivelyFirstMatchWins() throws SQLException {
+    ResultSetWrapper rsw = new ResultSetWrapper(resultSet(new String[] { "id", "name", "ID" },
+        new int[] { Types.INTEGER, Types.VARCHAR, Types.VARCHAR }), configuration, cache);
+    assertEquals(1, rsw.getColumnIndex("Id"));
+    assertEquals(2, rsw.getColumnIndex("NAME"));
+    assertEquals(-1, rsw.getColumnIndex("unknown"));
+    assertEquals(JdbcType.INTEGER, rsw.getJdbcType("ID"));
+    assertEquals(JdbcType.VARCHAR, rsw.getJdbcType("Name"));
+    assertNull(rsw.getJdbcType("unknown"));
+  }
+
+  @Test
+  public void shouldKeepSeparateLayoutsForDifferentColumns() throws SQLException {
+    new ResultSetWrapper(resultSet(new String[] { "id" }, new int[] { Types.INTEGER }), configuration, cache);
+    new ResultSetWrapper(resultSet(new String[] { "id" }, new int[] { Types.VARCHAR }), configuration, cache);
+    new ResultSetWrapper(resultSet(new String[] { "name" }, new int[] { Types.INTEGER }), configuration, cache);
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void shouldKeepOnlyTheMostRecentLayouts() throws SQLException {
+    for (int i = 0; i < ResultSetLayoutCache.MAX_LAYOUTS + 3; i++) {
+      new ResultSetWrapper(resultSet(new String[] { "c" + i }, new int[] { Types.INTEGER }), configuration, cache);
+    }
+    assertEquals(ResultSetLayoutCache.MAX_LAYOUTS, cache.size());
+    ResultSet latest = resultSet(new String[] { "c" + (ResultSetLayoutCache.MAX_LAYOUTS + 2) },
+        new int[] { Types.INTEGER });
+    new ResultSetWrapper(latest, configuration, cache);
+    verify(latest.getMetaData(), never()).getColumnClassName(anyInt());
+  }
+
+  @Test
+  public void shouldNotShareLayoutsWithoutACache() throws SQLException {
+    ResultSet rs = resultSet(new String[] { "id" }, new int[] { Types.INTEGER });
+    new ResultSetWrapper(rs, configuration);
+    new ResultSetWrapper(rs, configuration);
+    verify(rs.getMetaData(), times(2)).getColumnClassName(1);
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.junit.Test;
+
+public class RowKeyTest {
+
+  private final ResultSet rs = mock(ResultSet.class);
+
+  private RowKey.Template template(String id, boolean keepEmptyValues, TypeHandler<?>... typeHandlers) {
+    String[] columns = new String[typeHandlers.length];
+    int[] columnIndexes = new int[typeHandlers.length];
+    for (int i = 0; i < typeHandlers.length; i++) {
+      columns[i] = "C" + (i + 1);
+      columnIndexes[i] = i + 1;
+    }
+    return new RowKey.Template(id, columns, columnIndexes, typeHandlers, keepEmptyValues);
+  }
+
+  @Test
+  public void shouldReadIntegralIdsWithoutBoxing() throws SQLException {
+    RowKey.Template template = template("users:null", false, new IntegerTypeHandler());
+    when(rs.getLong(1)).thenReturn(7L);
+    RowKey first = template.createKey(rs);
+    RowKey second = template.createKey(rs);
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    verify(rs, never()).getInt(1);
+
+    when(rs.getLong(1)).thenReturn(8L);
+    assertFalse(first.equals(template.createKey(rs)));
+  }
+
+  @Test
+  public void shouldReturnNullKeyWhenAllColumnsAreNull() throws SQLException {
+    when(rs.getLong(1)).thenReturn(0L);
+    when(rs.wasNull()).thenReturn(true);
+    assertSame(RowKey.NULL, template("users:null", false, new IntegerTypeHandler()).createKey(rs));
+    RowKey empty = template("users:null", true, new IntegerTypeHandler()).createKey(rs);
+    assertNotSame(RowKey.NULL, empty);
+    assertFalse(empty.equals(template("users:null", true, new IntegerTypeHandler()).createKey(mock(ResultSet.class))));
+  }
+
+  @Test
+  public void shouldTellResultMapsAndPrefixesApart() throws SQLException {
+    when(rs.getLong(1)).thenReturn(1L);
+    RowKey home = template("address:HOME_", false, new IntegerTypeHandler()).createKey(rs);
+    RowKey work = template("address:WORK_", false, new IntegerTypeHandler()).createKey(rs);
+    assertFalse(home.equals(work));
+  }
+
+  @Test
+  public void shouldCompareMultiColumnKeysByPosition() throws SQLException {
+    RowKey.Template template = template("roles:null", false, new StringTypeHandler(), new StringTypeHandler());
+    when(rs.getString(1)).thenReturn("a");
+    when(rs.getString(2)).thenReturn(null);
+    RowKey first = template.createKey(rs);
+    when(rs.getString(1)).thenReturn(null);
+    when(rs.getString(2)).thenReturn("a");
+    RowKey second = template.createKey(rs);
+    assertFalse(first.equals(second));
+    when(rs.getString(1)).thenReturn("a");
+    when(rs.getString(2)).thenReturn(null);
+    assertEquals(first, template.createKey(rs));
+  }
+
+  @Test
+  public void shouldCombineWithParentKey() throws SQLException {
+    RowKey.Template parentTemplate = template("users:null", false, new IntegerTypeHandler());
+    RowKey.Template childTemplate = template("groups:null", false, new StringTypeHandler());
+    when(rs.getLong(1)).thenReturn(1L);
+    when(rs.getString(1)).thenReturn("g1");
+    RowKey parent1 = parentTemplate.createKey(rs);
+    RowKey child = childTemplate.createKey(rs);
+    when(rs.getLong(1)).thenReturn(2L);
+    RowKey parent2 = parentTemplate.createKey(rs);
+
+    assertEquals(child.combine(parent1), child.combine(parent1));
+    assertFalse(child.combine(parent1).equals(child.combine(parent2)));
+    assertFalse(child.combine(parent1).equals(child));
+    assertSame(RowKey.NULL, child.combine(RowKey.NULL));
+    assertSame(RowKey.NULL, RowKey.NULL.combine(parent1));
+  }
+
+}
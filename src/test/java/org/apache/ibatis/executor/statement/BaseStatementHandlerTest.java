@@ -27,8 +27,11 @@ import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -141,4 +144,127 @@ public class BaseStatementHandlerTest {
         verify(statement).setQueryTimeout(10);
     }
 
+    @Test
+    public void specifyQueryDeadlineShorterThanQueryTimeout() throws SQLException {
+        doReturn(30).when(statement).getQueryTimeout();
+        mappedStatementBuilder.timeout(30);
+
+        QueryDeadline deadline = QueryDeadline.after(5, TimeUnit.SECONDS);
+        deadline.bind();
+        try {
+            BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+            handler.setStatementTimeout(statement, null);
+        } finally {
+            deadline.unbind();
+        }
+
+        verify(statement).setQueryTimeout(30);
+        verify(statement).setQueryTimeout(5); // apply the remaining time of the deadline
+        assertNull(QueryDeadline.current());
+    }
+
+    @Test
+    public void specifyQueryDeadlineLongerThanQueryTimeout() throws SQLException {
+        doReturn(10).when(statement).getQueryTimeout();
+        mappedStatementBuilder.timeout(10);
+
+        QueryDeadline deadline = QueryDeadline.after(1, TimeUnit.MINUTES);
+        deadline.bind();
+        try {
+            BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+            handler.setStatementTimeout(statement, null);
+        } finally {
+            deadline.unbind();
+        }
+
+        verify(statement).setQueryTimeout(10);
+        verify(statement).getQueryTimeout();
+        verifyNoMoreInteractions(statement);
+    }
+
+    @Test(expected = SQLTimeoutException.class)
+    public void refuseStatementAfterDeadline() throws SQLException {
+        QueryDeadline deadline = QueryDeadline.after(0, TimeUnit.SECONDS);
+        deadline.bind();
+        try {
+            BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+            handler.setStatementTimeout(statement, null);
+        } finally {
+            deadline.unbind();
+        }
+    }
+
+    @Test
+    public void cancelRunningStatement() throws SQLException {
+        QueryDeadline deadline = QueryDeadline.none();
+        deadline.bind();
+        try {
+            BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+            handler.setStatementTimeout(statement, null);
+            verify(statement, never()).setQueryTimeout(anyInt());
+
+            deadline.cancel();
+            verify(statement).cancel();
+            assertTrue(deadline.isCancelled());
+
+            try {
+                handler.setStatementTimeout(statement, null);
+                fail("A cancelled deadline should refuse new statements");
+            } catch (SQLException e) {
+                assertEquals("The query has been cancelled.", e.getMessage());
+            }
+        } finally {
+            deadline.unbind();
+        }
+    }
+
+    @Test
+    public void adaptiveFetchSizeFallsBackToDefaultWithoutHistory() throws SQLException {
+        doReturn(true).when(configuration).isAdaptiveFetchSizeEnabled();
+        doReturn(50).when(configuration).getDefaultFetchSize();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(statement).setFetchSize(50);
+    }
+
+    @Test
+    public void adaptiveFetchSizeFollowsRecentResultSizesWithinBounds() throws SQLException {
+        doReturn(true).when(configuration).isAdaptiveFetchSizeEnabled();
+        doReturn(10).when(configuration).getAdaptiveFetchSizeMin();
+        doReturn(500).when(configuration).getAdaptiveFetchSizeMax();
+        MappedStatement mappedStatement = mappedStatementBuilder.build();
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatement, null, null, null, null);
+
+        mappedStatement.getFetchSizeStatistics().recordRows(200);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(201);
+
+        mappedStatement.getFetchSizeStatistics().reset();
+        mappedStatement.getFetchSizeStatistics().recordRows(100000);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(500);
+
+        mappedStatement.getFetchSizeStatistics().reset();
+        mappedStatement.getFetchSizeStatistics().recordRows(0);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(10);
+        assertEquals(10, mappedStatement.getFetchSizeStatistics().getLastFetchSize());
+    }
+
+    @Test
+    public void adaptiveFetchSizeNeverOverridesMappedStatementFetchSize() throws SQLException {
+        doReturn(true).when(configuration).isAdaptiveFetchSizeEnabled();
+        mappedStatementBuilder.fetchSize(30);
+        MappedStatement mappedStatement = mappedStatementBuilder.build();
+        mappedStatement.getFetchSizeStatistics().recordRows(200);
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatement, null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(statement).setFetchSize(30);
+        verify(configuration, never()).isAdaptiveFetchSizeEnabled();
+    }
+
 }
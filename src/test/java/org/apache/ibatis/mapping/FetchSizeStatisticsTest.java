@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class FetchSizeStatisticsTest {
+
+  @Test
+  public void shouldReturnFallbackWithoutHistory() {
+    FetchSizeStatistics statistics = new FetchSizeStatistics();
+    assertNull(statistics.chooseFetchSize(10, 1000, null));
+    assertEquals(Integer.valueOf(25), statistics.chooseFetchSize(10, 1000, 25));
+    assertEquals(-1, statistics.getAverageRows());
+    assertEquals(0, statistics.getExecutionCount());
+  }
+
+  @Test
+  public void shouldSmoothRecentResultSizes() {
+    FetchSizeStatistics statistics = new FetchSizeStatistics();
+    statistics.recordRows(100);
+    statistics.recordRows(500);
+    // 100 + (500 - 100) / 4
+    assertEquals(200, statistics.getAverageRows());
+    assertEquals(2, statistics.getExecutionCount());
+    assertEquals(Integer.valueOf(201), statistics.chooseFetchSize(10, 1000, null));
+    assertEquals(201, statistics.getLastFetchSize());
+  }
+
+}
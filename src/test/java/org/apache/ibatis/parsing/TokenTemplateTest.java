@@ -0,0 +1,84 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.parsing.GenericTokenParserTest.VariableTokenHandler;
+import org.junit.Test;
+
+public class TokenTemplateTest {
+
+	private static final String[] INPUTS = { "${first_name} ${initial} ${last_name} reporting.",
+			"Hello captain ${first_name} ${initial} ${last_name}", "${first_name}${initial}${last_name}",
+			"{}${first_name}${initial}${last_name}", "}${first_name}{{${initial}}}${last_name}",
+			"}${first_name}}${initial}{${last_name}{{}}${}", "{$$something}${first_name}", "${", "${\\}",
+			"${var{with\\}brace}", "${}", "}", "Hello ${ this is a test.", "Hello } ${ this is a test.",
+			"\\${skipped} variable", "${skipped} \\${skipped} variable", "The ${first_name} is \\${skipped} ${last_name",
+			"", null };
+
+	@Test
+	public void shouldRenderLikeGenericTokenParser() {
+		Map<String, String> variables = new HashMap<String, String>();
+		variables.put("first_name", "James");
+		variables.put("initial", "T");
+		variables.put("last_name", "Kirk");
+		variables.put("var{with}brace", "Hiya");
+		variables.put("", "");
+		VariableTokenHandler handler = new VariableTokenHandler(variables);
+		GenericTokenParser parser = new GenericTokenParser("${", "}", handler);
+
+		for (String input : INPUTS) {
+			assertEquals(input, parser.parse(input), TokenTemplate.compile("${", "}", input).apply(handler));
+		}
+	}
+
+	@Test
+	public void shouldExposeLiteralsAndTokens() {
+		TokenTemplate template = TokenTemplate.compile("#{", "}", "id = #{id} and \\#{name} = #{ name }");
+		assertTrue(template.hasTokens());
+		assertEquals(2, template.getTokenCount());
+		assertEquals("id = ", template.getLiteral(0));
+		assertEquals("id", template.getToken(0));
+		assertEquals(" and #{name} = ", template.getLiteral(1));
+		assertEquals(" name ", template.getToken(1));
+		assertEquals("", template.getLiteral(2));
+		assertFalse(TokenTemplate.compile("#{", "}", "id = \\#{id}").hasTokens());
+	}
+
+	@Test
+	public void shouldEvaluateAgainstDifferentHandlers() {
+		TokenTemplate template = TokenTemplate.compile("#{", "}", "(#{a}, #{b})");
+		assertEquals("(?, ?)", template.apply(new TokenHandler() {
+			@Override
+			public String handleToken(String content) {
+				return "?";
+			}
+		}));
+		assertEquals("(A, B)", template.apply(new TokenHandler() {
+			@Override
+			public String handleToken(String content) {
+				return content.toUpperCase();
+			}
+		}));
+	}
+
+}
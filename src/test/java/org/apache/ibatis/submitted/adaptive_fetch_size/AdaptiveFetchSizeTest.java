@@ -0,0 +1,103 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.adaptive_fetch_size;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.FetchSizeStatistics;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AdaptiveFetchSizeTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UnpooledDataSource dataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:adaptive_fetch_size", "sa", "");
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.setAdaptiveFetchSizeEnabled(true);
+    configuration.setAdaptiveFetchSizeMin(2);
+    configuration.setAdaptiveFetchSizeMax(8);
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+    // populate in-memory database
+    Connection conn = dataSource.getConnection();
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/adaptive_fetch_size/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    conn.close();
+  }
+
+  @Test
+  public void shouldTrackResultSizesAndBoundTheChosenFetchSize() {
+    FetchSizeStatistics statistics = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(Mapper.class.getName() + ".getUserNames").getFetchSizeStatistics();
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(4, mapper.getUserNames(4).size());
+      assertEquals(4, statistics.getAverageRows());
+      assertEquals(0, statistics.getLastFetchSize());
+
+      assertEquals(10, mapper.getUserNames(10).size());
+      // 4 + (10 - 4) / 4 = 5.5
+      assertEquals(6, statistics.getAverageRows());
+      assertEquals(5, statistics.getLastFetchSize());
+
+      for (int i = 0; i < 20; i++) {
+        sqlSession.clearCache();
+        mapper.getUserNames(10);
+      }
+      assertEquals(22, statistics.getExecutionCount());
+      assertEquals(10, statistics.getAverageRows());
+      assertEquals(8, statistics.getLastFetchSize());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldKeepTheStatementFetchSize() {
+    FetchSizeStatistics statistics = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(Mapper.class.getName() + ".getAllUserNamesWithFetchSize").getFetchSizeStatistics();
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(10, mapper.getAllUserNamesWithFetchSize().size());
+      assertEquals(10, mapper.getAllUserNamesWithFetchSize().size());
+      assertEquals(0, statistics.getLastFetchSize());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
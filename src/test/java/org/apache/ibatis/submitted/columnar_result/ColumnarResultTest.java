@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar_result;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.resultset.ColumnarResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ColumnarResultTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UnpooledDataSource dataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver",
+        "jdbc:hsqldb:mem:columnar_result", "sa", "");
+
+    // populate in-memory database
+    Connection conn = dataSource.getConnection();
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/columnar_result/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    PreparedStatement ps = conn.prepareStatement("insert into series (n) values (?)");
+    for (int i = 0; i < 200; i++) {
+      ps.setInt(1, i);
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    ps.close();
+    conn.commit();
+    conn.close();
+
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  public void shouldReadColumnsIntoPrimitiveArrays() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      ColumnarResult result = sqlSession.getMapper(Mapper.class).getMeasurements();
+      assertEquals(3, result.getRowCount());
+      assertEquals(5, result.getColumnNames().size());
+      assertArrayEquals(new int[] { 1, 2, 3 }, result.getIntColumn("id"));
+      assertArrayEquals(new String[] { "a", "b", null }, result.getStringColumn("SENSOR"));
+      assertArrayEquals(new double[] { 1.5, 0, 3.5 }, result.getDoubleColumn("reading"), 0);
+      assertArrayEquals(new long[] { 10000000000L, 20, 0 }, result.getLongColumn("total"));
+      assertEquals(new BigDecimal("2.20"), result.getObjectColumn("price")[1]);
+
+      assertFalse(result.isNull("reading", 0));
+      assertTrue(result.isNull("reading", 1));
+      assertTrue(result.isNull("total", 2));
+      assertFalse(result.isNull("id", 2));
+      assertTrue(result.isNull("sensor", 2));
+      assertTrue(result.isNull("price", 2));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldGrowColumnsBeyondTheirInitialCapacity() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      int[] n = sqlSession.getMapper(Mapper.class).getSeries().getIntColumn("n");
+      assertEquals(200, n.length);
+      for (int i = 0; i < n.length; i++) {
+        assertEquals(i, n[i]);
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldHonourRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      // selectOne ignores row bounds, the single columnar result is the first element of the list
+      ColumnarResult result = sqlSession.<ColumnarResult> selectList(
+          "org.apache.ibatis.submitted.columnar_result.Mapper.getMeasurements", null, new RowBounds(1, 1)).get(0);
+      assertEquals(1, result.getRowCount());
+      assertArrayEquals(new int[] { 2 }, result.getIntColumn("id"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReturnAnEmptyResultForNoRows() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      ColumnarResult result = sqlSession.getMapper(Mapper.class).getNoMeasurements();
+      assertEquals(0, result.getRowCount());
+      assertEquals(0, result.getIntColumn("id").length);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = ExecutorException.class)
+  public void shouldRejectAccessAsAnotherArrayType() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getMeasurements().getLongColumn("id");
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRegisterColumnarAlias() {
+    assertEquals(ColumnarResult.class,
+        sqlSessionFactory.getConfiguration().getTypeAliasRegistry().resolveAlias("columnar"));
+  }
+
+}
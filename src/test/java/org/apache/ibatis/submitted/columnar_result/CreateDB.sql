@@ -0,0 +1,34 @@
+--
+--    Copyright 2009-2018 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table measurements if exists;
+drop table series if exists;
+
+create table measurements (
+  id int,
+  sensor varchar(20),
+  reading double,
+  total bigint,
+  price decimal(10, 2)
+);
+
+insert into measurements (id, sensor, reading, total, price) values(1, 'a', 1.5, 10000000000, 1.10);
+insert into measurements (id, sensor, reading, total, price) values(2, 'b', null, 20, 2.20);
+insert into measurements (id, sensor, reading, total, price) values(3, null, 3.5, null, null);
+
+create table series (
+  n int
+);
@@ -0,0 +1,32 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar_result;
+
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.executor.resultset.ColumnarResult;
+
+public interface Mapper {
+
+  @Select("select id, sensor, reading, total, price from measurements order by id")
+  ColumnarResult getMeasurements();
+
+  @Select("select n from series order by n")
+  ColumnarResult getSeries();
+
+  @Select("select id from measurements where id < 0")
+  ColumnarResult getNoMeasurements();
+
+}
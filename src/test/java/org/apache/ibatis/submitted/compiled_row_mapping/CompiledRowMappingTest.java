@@ -0,0 +1,233 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.executor.resultset.CompactRowMap;
+import org.apache.ibatis.executor.resultset.RowMapper;
+import org.apache.ibatis.executor.resultset.RowMapperFactory;
+import org.apache.ibatis.executor.resultset.RowMappingPlan;
+import org.apache.ibatis.executor.resultset.javassist.JavassistRowMapperFactory;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CompiledRowMappingTest {
+
+  private static UnpooledDataSource dataSource;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:compiled_row_mapping", "sa", "");
+
+    // populate in-memory database
+    Connection conn = dataSource.getConnection();
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapping/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    conn.close();
+  }
+
+  private Configuration configuration;
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void buildFactory() {
+    configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  public void shouldMapExplicitAndAutomaticColumnsThroughACompiledPlan() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(2, users.size());
+      assertEquals(Integer.valueOf(1), users.get(0).getId());
+      assertEquals("User1", users.get(0).getName());
+      assertEquals(30, users.get(0).getAge());
+      assertEquals(Long.valueOf(1000L), users.get(0).getScore());
+      // nulls leave the defaults untouched unless callSettersOnNulls is set
+      assertEquals(-1, users.get(1).getAge());
+      assertEquals(Long.valueOf(-1L), users.get(1).getScore());
+      assertEquals(1, configuration.getRowMappingPlanCache().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldShareThePlanAcrossQueries() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getUserAutoMapped(1).getName());
+      assertEquals("User2", mapper.getUserAutoMapped(2).getName());
+      assertEquals(1, configuration.getRowMappingPlanCache().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCallSettersOnNullsExceptForPrimitives() {
+    configuration.setCallSettersOnNulls(true);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      User user = sqlSession.getMapper(Mapper.class).getUserAutoMapped(2);
+      assertEquals(-1, user.getAge());
+      assertNull(user.getScore());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldKeepMapResultsOnTheReflectivePath() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsersAsMaps();
+      assertEquals("User1", users.get(0).get("NAME"));
+      assertEquals(1, configuration.getRowMappingPlanCache().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReturnCompactRowMapsWhenEnabled() {
+    configuration.setCompactMapResultsEnabled(true);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsersWithAgeAsMaps();
+      assertTrue(users.get(0) instanceof CompactRowMap);
+      assertEquals(Integer.valueOf(1), users.get(0).get("ID"));
+      assertEquals("User1", users.get(0).get("NAME"));
+      assertEquals(Integer.valueOf(30), users.get(0).get("AGE"));
+      assertEquals(2, users.get(1).size());
+      assertFalse(users.get(1).containsKey("AGE"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapSingleColumnResultsThroughARowMapper() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Integer> ages = sqlSession.getMapper(Mapper.class).getAges();
+      assertEquals(2, ages.size());
+      assertEquals(Integer.valueOf(30), ages.get(0));
+      assertNull(ages.get(1));
+      assertEquals(1, configuration.getRowMappingPlanCache().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapTheSameWithPlansDisabled() {
+    configuration.setCompiledRowMappingEnabled(false);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals("User1", users.get(0).getName());
+      assertEquals(-1, users.get(1).getAge());
+      assertEquals(0, configuration.getRowMappingPlanCache().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapThroughAJavassistGeneratedRowMapper() {
+    List<RowMapper> rowMappers = recordJavassistRowMappers(configuration);
+    configuration.setCallSettersOnNulls(true);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(Integer.valueOf(1), users.get(0).getId());
+      assertEquals("User1", users.get(0).getName());
+      assertEquals(30, users.get(0).getAge());
+      assertEquals(Long.valueOf(1000L), users.get(0).getScore());
+      assertEquals(-1, users.get(1).getAge());
+      assertNull(users.get(1).getScore());
+      assertEquals(1, rowMappers.size());
+      assertFalse(rowMappers.get(0) instanceof RowMappingPlan);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReuseTheGeneratedClassForAnIdenticalPlan() {
+    List<RowMapper> rowMappers = recordJavassistRowMappers(configuration);
+    Configuration other = new Configuration(configuration.getEnvironment());
+    other.addMapper(Mapper.class);
+    List<RowMapper> otherRowMappers = recordJavassistRowMappers(other);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    SqlSession otherSqlSession = new SqlSessionFactoryBuilder().build(other).openSession();
+    try {
+      assertEquals("User1", sqlSession.getMapper(Mapper.class).getUsers().get(0).getName());
+      assertEquals("User1", otherSqlSession.getMapper(Mapper.class).getUsers().get(0).getName());
+      assertNotSame(rowMappers.get(0), otherRowMappers.get(0));
+      assertSame(rowMappers.get(0).getClass(), otherRowMappers.get(0).getClass());
+    } finally {
+      sqlSession.close();
+      otherSqlSession.close();
+    }
+  }
+
+  private static List<RowMapper> recordJavassistRowMappers(Configuration configuration) {
+    final List<RowMapper> rowMappers = new ArrayList<RowMapper>();
+    configuration.setRowMapperFactory(new RowMapperFactory() {
+      private final RowMapperFactory delegate = new JavassistRowMapperFactory();
+
+      @Override
+      public void setProperties(Properties properties) {
+      }
+
+      @Override
+      public RowMapper createRowMapper(RowMappingPlan plan) {
+        RowMapper rowMapper = delegate.createRowMapper(plan);
+        rowMappers.add(rowMapper);
+        return rowMapper;
+      }
+    });
+    return rowMappers;
+  }
+
+}
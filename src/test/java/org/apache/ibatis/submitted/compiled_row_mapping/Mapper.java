@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Results(id = "userResult", value = {
+      @Result(property = "name", column = "user_name")
+  })
+  @Select("select id, user_name, age, score from users order by id")
+  List<User> getUsers();
+
+  @Select("select id, user_name as name, age, score from users where id = #{id}")
+  User getUserAutoMapped(Integer id);
+
+  @Select("select id, user_name as name from users order by id")
+  List<Map<String, Object>> getUsersAsMaps();
+
+  @Select("select id, user_name as name, age from users order by id")
+  List<Map<String, Object>> getUsersWithAgeAsMaps();
+
+  @Select("select age from users order by id")
+  List<Integer> getAges();
+
+}
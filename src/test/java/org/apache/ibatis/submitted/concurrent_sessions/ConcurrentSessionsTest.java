@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.concurrent_sessions;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Stresses the pooled data source and the cache decorators with many more concurrent sessions than
+ * there are pooled connections.
+ */
+public class ConcurrentSessionsTest {
+
+  private static final int SESSION_COUNT = 5000;
+  private static final int THREAD_COUNT = 200;
+
+  private static PooledDataSource dataSource;
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:concurrent_sessions", "sa", "");
+    dataSource.setPoolMaximumActiveConnections(8);
+    dataSource.setPoolMaximumIdleConnections(8);
+    dataSource.setPoolTimeToWait(100);
+
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+    // populate in-memory database
+    Connection conn = dataSource.getConnection();
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/concurrent_sessions/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    conn.close();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  public void shouldServeManyMoreSessionsThanPooledConnections() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < SESSION_COUNT; i++) {
+        final int id = i % 20 + 1;
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            SqlSession sqlSession = sqlSessionFactory.openSession();
+            try {
+              Mapper mapper = sqlSession.getMapper(Mapper.class);
+              assertEquals(20, mapper.countUsers());
+              return mapper.getUserName(id);
+            } finally {
+              sqlSession.close();
+            }
+          }
+        }));
+      }
+      for (int i = 0; i < SESSION_COUNT; i++) {
+        assertEquals("User" + (i % 20 + 1), results.get(i).get(30, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertTrue(dataSource.getPoolState().getIdleConnectionCount() <= 8);
+    assertEquals(0, dataSource.getPoolState().getBadConnectionCount());
+  }
+
+}
@@ -0,0 +1,194 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.constructor_mapping;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ConstructorMappingTest {
+
+  private static UnpooledDataSource dataSource;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:constructor_mapping", "sa", "");
+
+    // populate in-memory database
+    Connection conn = dataSource.getConnection();
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/constructor_mapping/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    conn.close();
+  }
+
+  private Configuration configuration;
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void buildFactory() {
+    configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.setMapUnderscoreToCamelCase(true);
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  public void shouldMapConstructorArgsRepeatedly() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 2; i++) {
+        List<UserDto> users = mapper.getUserDtos();
+        assertEquals(2, users.size());
+        assertEquals(Integer.valueOf(1), users.get(0).getId());
+        assertEquals("User1", users.get(0).getName());
+        assertEquals("User2", users.get(1).getName());
+        sqlSession.clearCache();
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapColumnsInConstructorOrder() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<ImmutableUser> users = sqlSession.getMapper(Mapper.class).getImmutableUsersInOrder();
+      assertEquals(1, users.size());
+      assertUser(users.get(0), 1, "User1", 30);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapRecordStyleClassByColumnName() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<ImmutableUser> users = sqlSession.getMapper(Mapper.class).getImmutableUsersShuffled();
+      assertUser(users.get(0), 1, "User1", 30);
+      assertUser(users.get(1), 2, "User2", 0);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = PersistenceException.class)
+  public void shouldNotUseRecordStyleConstructorWhenAColumnIsMissing() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getImmutableUsersWithoutAge();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapRecordStyleClassWithoutCompiledMapping() {
+    configuration.setCompiledRowMappingEnabled(false);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<ImmutableUser> users = sqlSession.getMapper(Mapper.class).getImmutableUsersShuffled();
+      assertUser(users.get(0), 1, "User1", 30);
+      List<UserDto> dtos = sqlSession.getMapper(Mapper.class).getUserDtos();
+      assertEquals("User2", dtos.get(1).getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapRecordStyleClassWithRepeatedComponentTypes() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<FullName> names = sqlSession.getMapper(Mapper.class).getFullNames();
+      assertEquals("Jane", names.get(0).getFirstName());
+      assertEquals("User1", names.get(0).getLastName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapRecordStyleClassWithRepeatedComponentTypesInDeclarationOrder() {
+    // without parameter names the declared field order is checked against the constructor signature
+    configuration.setUseActualParamName(false);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<FullName> names = sqlSession.getMapper(Mapper.class).getFullNames();
+      assertEquals("Jane", names.get(1).getFirstName());
+      assertEquals("User2", names.get(1).getLastName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldNameTheMappingOfAnUnreadableArgument() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getUserDtosWithUnreadableId();
+      fail();
+    } catch (PersistenceException e) {
+      assertTrue(e.getCause() instanceof ExecutorException);
+      assertTrue(e.getCause().getMessage().startsWith("Could not process result for mapping: "));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReportTheConstructorsOwnException() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getInvalidUsers();
+      fail();
+    } catch (PersistenceException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+      assertEquals("id must not be negative", e.getCause().getMessage());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  private void assertUser(ImmutableUser user, int id, String userName, int age) {
+    assertEquals(Integer.valueOf(id), user.getId());
+    assertEquals(userName, user.getUserName());
+    assertEquals(age, user.getAge());
+  }
+
+}
@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.constructor_mapping;
+
+/**
+ * Shaped like a Java record: one final field per constructor argument, in the same order.
+ */
+public final class ImmutableUser {
+
+  private final Integer id;
+  private final String userName;
+  private final int age;
+
+  public ImmutableUser(Integer id, String userName, int age) {
+    this.id = id;
+    this.userName = userName;
+    this.age = age;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public int getAge() {
+    return age;
+  }
+
+}
@@ -0,0 +1,59 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.constructor_mapping;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @ConstructorArgs({
+      @Arg(column = "id", javaType = Integer.class, id = true),
+      @Arg(column = "user_name", javaType = String.class)
+  })
+  @Select("select id, user_name from users order by id")
+  List<UserDto> getUserDtos();
+
+  @ConstructorArgs({
+      @Arg(column = "user_name", javaType = Integer.class, id = true),
+      @Arg(column = "user_name", javaType = String.class)
+  })
+  @Select("select id, user_name from users order by id")
+  List<UserDto> getUserDtosWithUnreadableId();
+
+  @Select("select id, user_name, age from users where age is not null order by id")
+  List<ImmutableUser> getImmutableUsersInOrder();
+
+  @Select("select user_name, age, id from users order by id")
+  List<ImmutableUser> getImmutableUsersShuffled();
+
+  @Select("select user_name, id from users order by id")
+  List<ImmutableUser> getImmutableUsersWithoutAge();
+
+  @Select("select id, user_name as last_name, 'Jane' as first_name from users order by id")
+  List<FullName> getFullNames();
+
+  @ConstructorArgs({
+      @Arg(column = "id", javaType = Integer.class, id = true),
+      @Arg(column = "user_name", javaType = String.class)
+  })
+  @Select("select -id as id, user_name from users order by id")
+  List<ValidatedUser> getInvalidUsers();
+
+}
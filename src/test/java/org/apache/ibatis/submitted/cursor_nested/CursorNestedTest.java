@@ -18,6 +18,8 @@ package org.apache.ibatis.submitted.cursor_nested;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -28,7 +30,9 @@ import org.junit.Test;
 
 import java.io.Reader;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 public class CursorNestedTest {
 
@@ -116,4 +120,62 @@ public class CursorNestedTest {
             sqlSession.close();
         }
     }
+
+    @Test
+    public void shouldStreamNestedResultsThroughCursorWithoutResultOrdered() {
+        sqlSessionFactory.getConfiguration().setStreamNestedResultsEnabled(true);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsersUnordered");
+            Iterator<User> iterator = usersCursor.iterator();
+
+            // each user is complete when handed over, not just its first row
+            User user = iterator.next();
+            Assert.assertEquals(2, user.getGroups().size());
+            Assert.assertEquals(3, user.getRoles().size());
+
+            user = iterator.next();
+            Assert.assertEquals(1, user.getGroups().size());
+            Assert.assertEquals(3, user.getRoles().size());
+
+            user = iterator.next();
+            Assert.assertEquals(3, user.getGroups().size());
+            Assert.assertEquals(1, user.getRoles().size());
+
+            user = iterator.next();
+            Assert.assertEquals(2, user.getGroups().size());
+            Assert.assertEquals(2, user.getRoles().size());
+
+            Assert.assertFalse(iterator.hasNext());
+        } finally {
+            sqlSession.close();
+            sqlSessionFactory.getConfiguration().setStreamNestedResultsEnabled(false);
+        }
+    }
+
+    @Test
+    public void shouldStreamNestedResultsThroughResultHandlerWithoutResultOrdered() {
+        sqlSessionFactory.getConfiguration().setStreamNestedResultsEnabled(true);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            final List<String> names = new ArrayList<String>();
+            final List<Integer> groupCounts = new ArrayList<Integer>();
+            sqlSession.select("getAllUsersUnordered", new ResultHandler<User>() {
+                @Override
+                public void handleResult(ResultContext<? extends User> context) {
+                    User user = context.getResultObject();
+                    names.add(user.getName());
+                    groupCounts.add(user.getGroups().size());
+                }
+            });
+            Assert.assertEquals(4, names.size());
+            Assert.assertEquals("User1", names.get(0));
+            Assert.assertEquals("User4", names.get(3));
+            Assert.assertEquals(Integer.valueOf(2), groupCounts.get(0));
+            Assert.assertEquals(Integer.valueOf(3), groupCounts.get(2));
+        } finally {
+            sqlSession.close();
+            sqlSessionFactory.getConfiguration().setStreamNestedResultsEnabled(false);
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_simple;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.cursor.reactive.CursorPublisher;
+import org.apache.ibatis.cursor.reactive.Subscriber;
+import org.apache.ibatis.cursor.reactive.Subscription;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CursorPublisherTest {
+
+    private static final String GET_ALL_USERS = "org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers";
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        conn.close();
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldEmitOnlyRequestedRows() {
+        CursorPublisher<User> publisher = new CursorPublisher<User>(sqlSessionFactory, GET_ALL_USERS, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        Assert.assertTrue(subscriber.users.isEmpty());
+        subscriber.subscription.request(2);
+        Assert.assertEquals(2, subscriber.users.size());
+        Assert.assertEquals("User1", subscriber.users.get(0).getName());
+        Assert.assertEquals("User2", subscriber.users.get(1).getName());
+        Assert.assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(10);
+        Assert.assertEquals(5, subscriber.users.size());
+        Assert.assertEquals("User5", subscriber.users.get(4).getName());
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+    }
+
+    @Test
+    public void shouldSupportRequestsFromOnNext() {
+        CursorPublisher<User> publisher = new CursorPublisher<User>(sqlSessionFactory, GET_ALL_USERS, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        Assert.assertEquals(5, subscriber.users.size());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void shouldStopEmittingWhenCancelled() {
+        CursorPublisher<User> publisher = new CursorPublisher<User>(sqlSessionFactory, GET_ALL_USERS, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(3);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(3);
+
+        Assert.assertEquals(3, subscriber.users.size());
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+    }
+
+    @Test
+    public void shouldSignalErrorOnNonPositiveRequest() {
+        CursorPublisher<User> publisher = new CursorPublisher<User>(sqlSessionFactory, GET_ALL_USERS, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+        Assert.assertTrue(subscriber.users.isEmpty());
+    }
+
+    @Test
+    public void shouldRejectSecondSubscriber() {
+        CursorPublisher<User> publisher = new CursorPublisher<User>(sqlSessionFactory, GET_ALL_USERS, null);
+        publisher.subscribe(new RecordingSubscriber(0));
+        RecordingSubscriber second = new RecordingSubscriber(0);
+        publisher.subscribe(second);
+
+        Assert.assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    private static class RecordingSubscriber implements Subscriber<User> {
+
+        private final long requestOnNext;
+        private final List<User> users = new ArrayList<User>();
+        private Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        RecordingSubscriber(long requestOnNext) {
+            this.requestOnNext = requestOnNext;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(User item) {
+            users.add(item);
+            if (requestOnNext > 0) {
+                subscription.request(requestOnNext);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -19,11 +19,17 @@ import java.io.Reader;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -167,4 +173,60 @@ public class ForEachTest {
     }
   }
 
+  @Test
+  public void shouldPadListToNextPowerOfTwo() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assert.assertEquals(3, mapper.countByIdsPadded(Arrays.asList(1, 2, 3)));
+      Assert.assertEquals(4, boundSqlFor("countByIdsPadded", Arrays.asList(1, 2, 3)).getParameterMappings().size());
+      Assert.assertEquals(4, boundSqlFor("countByIdsPadded", Arrays.asList(1, 2, 3, 4)).getParameterMappings().size());
+      Assert.assertEquals(8, boundSqlFor("countByIdsPadded", Arrays.asList(1, 2, 3, 4, 5)).getParameterMappings().size());
+      Assert.assertEquals(1, boundSqlFor("countByIdsPadded", Arrays.asList(1)).getParameterMappings().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldSplitListIntoChunks() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assert.assertEquals(5, mapper.countByIdsChunked(Arrays.asList(1, 2, 3, 4, 5)));
+      Assert.assertEquals("select count(*) from users where ( id in ( ? , ? ) or id in ( ? , ? ) or id in ( ? ) )",
+          boundSqlFor("countByIdsChunked", Arrays.asList(1, 2, 3, 4, 5)).getSql().replaceAll("\\s+", " "));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRejectChunksWithoutOpenAndClose() {
+    XMLLanguageDriver driver = new XMLLanguageDriver();
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    try {
+      driver.createSqlSource(configuration, "<script>select count(*) from users where id in"
+          + " <foreach collection='list' item='id' separator=',' chunkSize='2'>#{id}</foreach></script>", null);
+      Assert.fail();
+    } catch (BuilderException e) {
+      Assert.assertEquals("A foreach element with a chunkSize requires both open and close.", e.getMessage());
+    }
+    try {
+      driver.createSqlSource(configuration, "<script>select count(*) from users where"
+          + " <foreach collection='list' item='id' open='id in (' separator=',' close=')' chunkSize='-1'"
+          + " chunkSeparator='or'>#{id}</foreach></script>", null);
+      Assert.fail();
+    } catch (BuilderException e) {
+      Assert.assertEquals("The chunkSize of a foreach element must be positive, but was -1.", e.getMessage());
+    }
+  }
+
+  private BoundSql boundSqlFor(String statement, List<Integer> ids) {
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("list", ids);
+    return sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.foreach.Mapper." + statement).getBoundSql(parameter);
+  }
+
 }
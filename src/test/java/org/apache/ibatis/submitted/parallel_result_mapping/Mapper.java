@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_result_mapping;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+public interface Mapper {
+
+  @Results(id = "userResult", value = {
+      @Result(property = "name", column = "user_name")
+  })
+  @Select("select id, user_name, age from users order by id")
+  List<User> getUsers();
+
+  @Select("select id, user_name, age from users order by id")
+  @org.apache.ibatis.annotations.ResultMap("userResult")
+  List<User> getUsersWithRowBounds(RowBounds rowBounds);
+
+  @Select("select id, user_name, age from users order by id")
+  @org.apache.ibatis.annotations.ResultMap("userResult")
+  void handleUsers(ResultHandler<User> resultHandler);
+
+}
@@ -0,0 +1,141 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_result_mapping;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelResultMappingTest {
+
+  private static final int USER_COUNT = 2500;
+
+  private static UnpooledDataSource dataSource;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:parallel_result_mapping", "sa", "");
+
+    // populate in-memory database
+    Connection conn = dataSource.getConnection();
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_result_mapping/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    PreparedStatement ps = conn.prepareStatement("insert into users (id, user_name, age) values (?, ?, ?)");
+    for (int i = 1; i <= USER_COUNT; i++) {
+      ps.setInt(1, i);
+      ps.setString(2, "User" + i);
+      if (i % 10 == 0) {
+        ps.setNull(3, java.sql.Types.INTEGER);
+      } else {
+        ps.setInt(3, i % 90);
+      }
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    conn.commit();
+    ps.close();
+    conn.close();
+  }
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void buildFactory() {
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.setParallelResultMappingEnabled(true);
+    configuration.setParallelResultMappingBatchSize(64);
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  public void shouldMapAllRowsInOrder() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(USER_COUNT, users.size());
+      for (int i = 0; i < USER_COUNT; i++) {
+        assertUser(i + 1, users.get(i));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldHonourRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithRowBounds(new RowBounds(100, 130));
+      assertEquals(130, users.size());
+      for (int i = 0; i < users.size(); i++) {
+        assertUser(101 + i, users.get(i));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapOnCallingThreadForCustomResultHandler() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      final Thread caller = Thread.currentThread();
+      final List<User> users = new ArrayList<User>();
+      sqlSession.getMapper(Mapper.class).handleUsers(new ResultHandler<User>() {
+        @Override
+        public void handleResult(ResultContext<? extends User> context) {
+          assertSame(caller, Thread.currentThread());
+          users.add(context.getResultObject());
+        }
+      });
+      assertEquals(USER_COUNT, users.size());
+      assertUser(USER_COUNT, users.get(USER_COUNT - 1));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  private void assertUser(int id, User user) {
+    assertEquals(Integer.valueOf(id), user.getId());
+    assertEquals("User" + id, user.getName());
+    assertEquals(id % 10 == 0 ? -1 : id % 90, user.getAge());
+  }
+
+}
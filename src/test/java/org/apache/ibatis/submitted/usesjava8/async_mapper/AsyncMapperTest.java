@@ -0,0 +1,186 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.usesjava8.async_mapper;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncMapperTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader(
+        "org/apache/ibatis/submitted/usesjava8/async_mapper/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+    executor = Executors.newFixedThreadPool(2);
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(executor);
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader(
+        "org/apache/ibatis/submitted/usesjava8/async_mapper/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    conn.close();
+    reader.close();
+    session.close();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldReturnCompletableFutureOfSingleObject() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> future = mapper.getUserById(1);
+      assertEquals("User1", future.get().getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReturnCompletableFutureOfList() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getUsers().thenApply(list -> list).get();
+      assertTrue(users.size() >= 2);
+      assertEquals("User1", users.get(0).getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReturnPlainFuture() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User2", mapper.getUserFuture(2).get().getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCompleteExceptionallyOnError() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUserFromMissingTable().get();
+      fail("Should have failed");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof PersistenceException);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCommitAsyncInsert() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      assertEquals(Integer.valueOf(1), mapper.insertUser(user).get());
+      assertEquals("User3", mapper.getUserById(3).get().getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCommitAsyncWritesReturningVoid() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(4);
+      user.setName("User4");
+      assertNull(mapper.insertUserWithoutCount(user).get());
+      user.setName("User4b");
+      assertNull(mapper.updateUser(user).get());
+      assertEquals("User4b", mapper.getUserById(4).get().getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRejectCursorInsideFuture() throws Exception {
+    sqlSessionFactory.getConfiguration().addMapper(CursorMapper.class);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(CursorMapper.class).getUserCursor();
+      fail("Should have rejected Future<Cursor<User>>");
+    } catch (BindingException e) {
+      assertTrue(e.getMessage().contains("cannot return a Cursor"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldBoundDefaultExecutorByActiveConnections() throws Exception {
+    PooledDataSource dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:asyncmapper", "sa", "");
+    dataSource.setPoolMaximumActiveConnections(3);
+    Configuration pooled = new Configuration(new Environment("pooled", new JdbcTransactionFactory(), dataSource));
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) pooled.getAsyncExecutor();
+    assertEquals(3, executor.getMaximumPoolSize());
+    executor.shutdown();
+
+    executor = (ThreadPoolExecutor) new Configuration().getAsyncExecutor();
+    assertEquals(10, executor.getMaximumPoolSize());
+    executor.shutdown();
+  }
+}